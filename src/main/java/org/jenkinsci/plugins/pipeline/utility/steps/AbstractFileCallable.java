@@ -29,10 +29,22 @@ import jenkins.MasterToSlaveFileCallable;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public abstract class AbstractFileCallable<T> extends MasterToSlaveFileCallable<T> {
+    /**
+     * The number of canonical parent directories to remember when checking if entries are inside the destination.
+     */
+    static final int CANONICAL_PARENTS_CACHE_SIZE = 1024;
+
     private FilePath destination;
     private boolean allowExtractionOutsideDestination = false;
+    private transient Path canonicalDestination;
+    private transient Map<Path, Path> canonicalParents;
 
     public FilePath getDestination() {
         return destination;
@@ -40,6 +52,18 @@ public abstract class AbstractFileCallable<T> extends MasterToSlaveFileCallable<
 
     public void setDestination(FilePath destination) {
         this.destination = destination;
+        this.canonicalDestination = null;
+        this.canonicalParents = null;
+    }
+
+    /**
+     * The destination as a path on the local file system.
+     * Only valid when invoked on the same host as the destination.
+     *
+     * @return the path of the destination
+     */
+    protected Path getLocalDestination() {
+        return new File(destination.getRemote()).toPath();
     }
 
     /**
@@ -57,6 +81,10 @@ public abstract class AbstractFileCallable<T> extends MasterToSlaveFileCallable<
     }
 
     protected boolean isDescendantOfDestination(FilePath f) throws IOException {
+        return isDescendantOfDestination(new File(f.getRemote()));
+    }
+
+    protected boolean isDescendantOfDestination(File f) throws IOException {
         if (allowExtractionOutsideDestination) {
             return true;
         }
@@ -64,8 +92,48 @@ public abstract class AbstractFileCallable<T> extends MasterToSlaveFileCallable<
         if (destination == null) {
             return false;
         }
-        File dst = new File(destination.getRemote()).getCanonicalFile();
-        File child = new File(f.getRemote()).getCanonicalFile();
-        return child.toPath().startsWith(dst.toPath());
+        Path dst = canonicalDestination;
+        if (dst == null) {
+            dst = new File(destination.getRemote()).getCanonicalFile().toPath();
+            canonicalDestination = dst;
+        }
+        return canonicalize(f.toPath()).startsWith(dst);
+    }
+
+    /**
+     * Same as {@link File#getCanonicalFile()}, but resolves the parent directory through a cache.
+     * Appending the name to the canonical parent only gives the same result when the name is a plain name
+     * that isn't a symbolic link, anything else is canonicalized in full.
+     */
+    private Path canonicalize(Path path) throws IOException {
+        Path parent = path.getParent();
+        Path name = path.getFileName();
+        if (parent == null || name == null || !isPlainName(name.toString()) || Files.isSymbolicLink(path)) {
+            return path.toFile().getCanonicalFile().toPath();
+        }
+        Map<Path, Path> cache = getCanonicalParents();
+        Path canonicalParent = cache.get(parent);
+        if (canonicalParent == null) {
+            canonicalParent = parent.toFile().getCanonicalFile().toPath();
+            cache.put(parent, canonicalParent);
+        }
+        return canonicalParent.resolve(name);
+    }
+
+    private static boolean isPlainName(String name) {
+        // Windows drops trailing dots and spaces and treats colons as alternate data streams
+        return !name.equals(".") && !name.equals("..") && !name.endsWith(".") && !name.endsWith(" ") && name.indexOf(':') < 0;
+    }
+
+    private synchronized Map<Path, Path> getCanonicalParents() {
+        if (canonicalParents == null) {
+            canonicalParents = Collections.synchronizedMap(new LinkedHashMap<Path, Path>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Path, Path> eldest) {
+                    return size() > CANONICAL_PARENTS_CACHE_SIZE;
+                }
+            });
+        }
+        return canonicalParents;
     }
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ public abstract class AbstractFileCompressStep extends AbstractFileStep {
     private String exclude;
     private boolean archive = false;
     private boolean overwrite = false;
+    private Integer level;
     /**
      * The relative path of the base directory to create the archive from.
      * Leave empty to create from the current working directory.
@@ -113,6 +114,27 @@ public abstract class AbstractFileCompressStep extends AbstractFileStep {
         this.overwrite = overwrite;
     }
 
+    /**
+     * The compression level to use, from 0 (no compression) to 9 (best compression).
+     * Leave empty to use the default level of the compression algorithm.
+     *
+     * @return the compression level or null for the default
+     */
+    public Integer getLevel() {
+        return level;
+    }
+
+    /**
+     * The compression level to use, from 0 (no compression) to 9 (best compression).
+     * Leave empty to use the default level of the compression algorithm.
+     *
+     * @param level the compression level or null for the default
+     */
+    @DataBoundSetter
+    public void setLevel(Integer level) {
+        this.level = level;
+    }
+
     private boolean defaultExcludes = true;
 
     /**
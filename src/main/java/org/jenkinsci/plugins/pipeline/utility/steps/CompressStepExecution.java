@@ -66,6 +66,10 @@ public abstract class CompressStepExecution extends SynchronousNonBlockingStepEx
         PrintStream logger = listener.getLogger();
         assert logger != null;
 
+        if (step.getLevel() != null && (step.getLevel() < 0 || step.getLevel() > 9)) {
+            throw new IllegalArgumentException("level must be between 0 and 9, was " + step.getLevel());
+        }
+
         FilePath ws = getContext().get(FilePath.class);
         assert ws != null;
         FilePath source = ws;
@@ -78,7 +82,7 @@ public abstract class CompressStepExecution extends SynchronousNonBlockingStepEx
             }
         }
         FilePath destination = ws.child(step.getFile());
-        if (destination.exists() && !step.isOverwrite()) {
+        if (destination.exists() && !isExistingDestinationAllowed()) {
             throw new IOException(destination.getRemote() + " exists.");
         }
 
@@ -112,4 +116,13 @@ public abstract class CompressStepExecution extends SynchronousNonBlockingStepEx
         return null;
     }
 
+    /**
+     * If the archive may be created when the destination already exists.
+     *
+     * @return true if so.
+     */
+    protected boolean isExistingDestinationAllowed() {
+        return step.isOverwrite();
+    }
+
 }
@@ -0,0 +1,78 @@
+package org.jenkinsci.plugins.pipeline.utility.steps;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes extracted archive entries straight to the file system of the agent the extraction runs on,
+ * instead of going through {@link hudson.FilePath} for each entry.
+ * Each directory is only created once, and the same buffer is used for every file.
+ *
+ * An instance is not thread safe, but the set of created directories can be shared between the instances
+ * of concurrently extracting threads.
+ */
+public class LocalFileWriter {
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Set<Path> createdDirectories;
+    private final byte[] bytes = new byte[BUFFER_SIZE];
+    private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+    public LocalFileWriter() {
+        this(ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * @param createdDirectories the directories known to exist, shared with other writers extracting to the same destination
+     */
+    public LocalFileWriter(Set<Path> createdDirectories) {
+        this.createdDirectories = createdDirectories;
+    }
+
+    /**
+     * Creates the directory and any missing parents, unless this or a writer sharing the same set already has.
+     *
+     * @param directory the directory
+     * @throws IOException if the directory could not be created
+     */
+    public void mkdirs(Path directory) throws IOException {
+        if (directory == null || createdDirectories.contains(directory)) {
+            return;
+        }
+        Files.createDirectories(directory);
+        createdDirectories.add(directory);
+    }
+
+    /**
+     * Writes the content of the stream to the file, replacing it if it already exists.
+     * The stream is not closed.
+     *
+     * @param in the content
+     * @param file the file to write
+     * @return the number of bytes written
+     * @throws IOException if reading or writing fails
+     */
+    public long write(InputStream in, Path file) throws IOException {
+        mkdirs(file.getParent());
+        long total = 0;
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int length;
+            while ((length = in.read(bytes)) != -1) {
+                buffer.clear().limit(length);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                total += length;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,285 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.fs;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffers the written bytes in a bounded ring buffer that a background thread drains to the underlying stream,
+ * so that writing never waits for the disk or the channel unless the buffer is full.
+ *
+ * The buffer is drained once {@code flushSize} bytes are waiting, or once the oldest waiting byte is
+ * {@code flushInterval} old, so that many small writes turn into few large ones.
+ * {@link #flush()} hands the waiting bytes to the writer right away, but doesn't wait for them to be written.
+ * {@link #sync()} and {@link #close()} do wait.
+ * A failure of the underlying stream is thrown by the next call.
+ *
+ * The writers of all streams share a pool of threads, and only hold on to one while there are bytes waiting.
+ */
+class AsyncBufferedOutputStream extends OutputStream {
+    private static final ExecutorService WRITERS = Executors.newCachedThreadPool(
+            new NamingThreadFactory(new DaemonThreadFactory(), AsyncBufferedOutputStream.class.getSimpleName()));
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private final int flushSize;
+    private final long flushIntervalNanos;
+    private final String name;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Signalled when there is something new for the writer to do.
+     */
+    private final Condition work = lock.newCondition();
+    /**
+     * Signalled when the writer has written bytes, making room in the buffer.
+     */
+    private final Condition written = lock.newCondition();
+
+    private int head;
+    private int count;
+    private long oldestNanos;
+    /**
+     * If the writer is writing bytes that are still counted in the buffer, or flushing the underlying stream.
+     */
+    private boolean writing;
+    /**
+     * If a writer is running, which it does as long as there are bytes in the buffer.
+     */
+    private boolean draining;
+    /**
+     * If the bytes in the buffer should be written without waiting for more.
+     */
+    private boolean flushing;
+    private int syncing;
+    private boolean closed;
+    private IOException failure;
+
+    /**
+     * @param out the stream to write to
+     * @param bufferSize the maximum number of bytes to buffer before writes wait
+     * @param flushSize the number of waiting bytes at which the buffer is drained right away
+     * @param flushInterval the longest time in milliseconds bytes wait in the buffer
+     * @param name the name of the writer, added to that of its thread while it writes
+     */
+    AsyncBufferedOutputStream(OutputStream out, int bufferSize, int flushSize, long flushInterval, String name) {
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+        this.flushSize = Math.min(Math.max(1, flushSize), bufferSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushInterval);
+        this.name = name;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        lock.lock();
+        try {
+            while (len > 0) {
+                checkOpen();
+                if (count == buffer.length) {
+                    work.signal();
+                    await(written);
+                    continue;
+                }
+                int tail = (head + count) % buffer.length;
+                int n = Math.min(len, Math.min(buffer.length - count, buffer.length - tail));
+                System.arraycopy(b, off, buffer, tail, n);
+                if (count == 0) {
+                    oldestNanos = System.nanoTime();
+                    if (!draining) {
+                        draining = true;
+                        WRITERS.execute(this::drain);
+                    }
+                    work.signal();
+                }
+                count += n;
+                off += n;
+                len -= n;
+                if (count >= flushSize) {
+                    work.signal();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Has the writer write the waiting bytes to the underlying stream and flush it, without waiting for it.
+     */
+    @Override
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            checkOpen();
+            if (count > 0) {
+                flushing = true;
+                work.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes all the buffered bytes to the underlying stream and flushes it.
+     *
+     * @throws IOException if writing failed
+     */
+    void sync() throws IOException {
+        lock.lock();
+        try {
+            checkOpen();
+            syncing++;
+            try {
+                work.signal();
+                while ((count > 0 || writing) && failure == null) {
+                    await(written);
+                }
+            } finally {
+                syncing--;
+            }
+            checkOpen();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            work.signal();
+            while ((count > 0 || writing) && failure == null) {
+                await(written);
+            }
+        } finally {
+            lock.unlock();
+        }
+        try {
+            out.close();
+        } finally {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private void await(Condition condition) throws InterruptedIOException {
+        try {
+            condition.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    /**
+     * The writer, which runs until the buffer is empty.
+     */
+    private void drain() {
+        Thread thread = Thread.currentThread();
+        String threadName = thread.getName();
+        thread.setName(threadName + ": " + name);
+        try {
+            drainBuffer();
+        } finally {
+            thread.setName(threadName);
+        }
+    }
+
+    private void drainBuffer() {
+        while (true) {
+            int start;
+            int length;
+            lock.lock();
+            try {
+                while (true) {
+                    if (count == 0) {
+                        // Started again by the next write
+                        draining = false;
+                        return;
+                    }
+                    long waited = System.nanoTime() - oldestNanos;
+                    if (closed || flushing || syncing > 0 || count >= flushSize || waited >= flushIntervalNanos) {
+                        break;
+                    }
+                    work.awaitNanos(flushIntervalNanos - waited);
+                }
+                start = head;
+                length = Math.min(count, buffer.length - head);
+                writing = true;
+            } catch (InterruptedException e) {
+                // Only the stream stops the writer
+                continue;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            boolean empty;
+            try {
+                out.write(buffer, start, length);
+            } catch (IOException e) {
+                error = e;
+            }
+            lock.lock();
+            try {
+                head = (head + length) % buffer.length;
+                count -= length;
+                empty = count == 0;
+                if (empty) {
+                    flushing = false;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (empty && error == null) {
+                try {
+                    out.flush();
+                } catch (IOException e) {
+                    error = e;
+                }
+            }
+            lock.lock();
+            try {
+                writing = false;
+                if (error != null) {
+                    // Nothing more can be written, let the next call report it
+                    failure = error;
+                    head = 0;
+                    count = 0;
+                }
+                written.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
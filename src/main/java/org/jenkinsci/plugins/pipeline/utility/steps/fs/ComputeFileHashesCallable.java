@@ -0,0 +1,48 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.fs;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the hashes of a file with several algorithms on the agent, reading it only once.
+ */
+public class ComputeFileHashesCallable extends MasterToSlaveFileCallable<Map<String, String>> {
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> algorithms;
+    private final String cacheFile;
+
+    /**
+     * @param algorithms the names of the {@link java.security.MessageDigest} algorithms
+     * @param cacheFile the file of the {@link HashCache} to use, or <code>null</code> to always hash the file
+     */
+    public ComputeFileHashesCallable(List<String> algorithms, String cacheFile) {
+        this.algorithms = new ArrayList<>(algorithms);
+        this.cacheFile = cacheFile;
+    }
+
+    @Override
+    public Map<String, String> invoke(File file, VirtualChannel channel) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            if (cacheFile == null) {
+                return ComputeHashCallable.hashesOfFile(file, algorithms);
+            }
+            HashCache cache = HashCache.load(cacheFile);
+            Map<String, String> hashes = cache.hashesOfFile(file, algorithms);
+            cache.save();
+            return hashes;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+}
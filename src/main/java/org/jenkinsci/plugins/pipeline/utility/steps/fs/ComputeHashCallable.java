@@ -1,58 +1,187 @@
 package org.jenkinsci.plugins.pipeline.utility.steps.fs;
 
+import hudson.Functions;
 import hudson.remoting.VirtualChannel;
 import jenkins.MasterToSlaveFileCallable;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.Formatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
- * Computes the hash of a file on the agent.
+ * Computes the hash of a file, or of all the files in a directory, on the agent.
  */
 public class ComputeHashCallable extends MasterToSlaveFileCallable<String> {
+    /**
+     * Files at least this large are hashed through memory mapped windows of the file instead of being read into a buffer.
+     */
+    static final long MAPPED_THRESHOLD = 16 * 1024 * 1024;
+    private static final long MAPPED_WINDOW = 256 * 1024 * 1024;
+    /**
+     * A mapped file can't be deleted on Windows until the mapping has been garbage collected,
+     * which would make cleaning up the workspace fail, so files are only read there.
+     */
+    private static final boolean MAP_FILES = !Functions.isWindows();
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     private final String hashAlgorithm;
+    private final String cacheFile;
 
     public ComputeHashCallable(String hashAlgorithm) {
+        this(hashAlgorithm, null);
+    }
+
+    /**
+     * @param hashAlgorithm the name of the {@link MessageDigest} algorithm
+     * @param cacheFile the file of the {@link HashCache} to use, or <code>null</code> to always hash the file
+     */
+    public ComputeHashCallable(String hashAlgorithm, String cacheFile) {
         this.hashAlgorithm = hashAlgorithm;
+        this.cacheFile = cacheFile;
+    }
+
+    public String getHashAlgorithm() {
+        return hashAlgorithm;
     }
 
     @Override
-    public String invoke(File file, VirtualChannel virtualChannel) throws IOException {
-        if (file.exists() && file.isFile()) {
-            try {
-                return hashOfFile(file);
-            } catch (NoSuchAlgorithmException e) {
-                throw new IOException(e.getMessage(), e);
+    public String invoke(File file, VirtualChannel virtualChannel) throws IOException, InterruptedException {
+        if (!file.isFile() && !file.isDirectory()) {
+            return null;
+        }
+        try {
+            HashCache cache = cacheFile == null ? null : HashCache.load(cacheFile);
+            String hash;
+            if (file.isDirectory()) {
+                hash = hashOfDirectory(file, cache);
+            } else {
+                hash = cache == null ? hashOfFile(file) : cache.hashOfFile(file, hashAlgorithm);
+            }
+            if (cache != null) {
+                cache.save();
             }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e.getMessage(), e);
         }
-        return null;
+    }
+
+    /**
+     * Computes a merkle style hash of the files in and below a directory.
+     * It is the hash of the list of the hashes and relative paths of the files, sorted by path,
+     * in the format read by <code>sha256sum --check</code>.
+     * So it only changes when a file is added, removed, renamed or modified.
+     * Empty directories and anything that isn't a regular file, like symbolic links, are left out.
+     * The files are hashed on one thread per processor.
+     *
+     * @param dir the directory to hash
+     * @param cache the remembered hashes of the files to use and add to, or <code>null</code> to always hash the files
+     * @return the hash in hex
+     * @throws NoSuchAlgorithmException if the algorithm doesn't exist
+     * @throws IOException if reading a file fails
+     * @throws InterruptedException if interrupted while waiting for the hashes of the files
+     */
+    String hashOfDirectory(File dir, HashCache cache) throws NoSuchAlgorithmException, IOException, InterruptedException {
+        MessageDigest digest = MessageDigest.getInstance(hashAlgorithm);
+        Path root = dir.toPath();
+        Path cachePath = cacheFile == null ? null : Paths.get(cacheFile).normalize();
+        List<String> paths = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            files.filter(path -> Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS) && !path.normalize().equals(cachePath))
+                    .forEach(path -> paths.add(root.relativize(path).toString()));
+        }
+
+        StringWriter manifest = new StringWriter();
+        ComputeHashesCallable.writeManifest(manifest, ComputeHashesCallable.hashFiles(dir, paths, hashAlgorithm, 0, cache));
+        return toHex(digest.digest(manifest.toString().getBytes(StandardCharsets.UTF_8)));
     }
 
     public String hashOfFile(final File file) throws NoSuchAlgorithmException, IOException {
-        final MessageDigest messageDigest = MessageDigest.getInstance(hashAlgorithm);
+        return hashesOfFile(file, Collections.singletonList(hashAlgorithm)).get(hashAlgorithm);
+    }
 
-        try (InputStream is = new BufferedInputStream(new FileInputStream(file))) {
-            final byte[] buffer = new byte[1024];
-            for (int read; (read = is.read(buffer)) != -1; ) {
-                messageDigest.update(buffer, 0, read);
+    /**
+     * Computes the hashes of a file with several algorithms while reading it once.
+     *
+     * @param file the file to hash
+     * @param algorithms the names of the {@link MessageDigest} algorithms
+     * @return the hash in hex by algorithm, in the order of the algorithms
+     * @throws NoSuchAlgorithmException if one of the algorithms doesn't exist
+     * @throws IOException if reading the file fails
+     */
+    static Map<String, String> hashesOfFile(File file, List<String> algorithms) throws NoSuchAlgorithmException, IOException {
+        MessageDigest[] digests = new MessageDigest[algorithms.size()];
+        for (int i = 0; i < digests.length; i++) {
+            digests[i] = MessageDigest.getInstance(algorithms.get(i));
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (MAP_FILES && size >= MAPPED_THRESHOLD) {
+                for (long position = 0; position < size; position += MAPPED_WINDOW) {
+                    update(digests, channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPED_WINDOW, size - position)));
+                }
+            } else {
+                ByteBuffer buffer = BUFFER.get();
+                buffer.clear();
+                while (channel.read(buffer) != -1) {
+                    buffer.flip();
+                    update(digests, buffer);
+                    buffer.clear();
+                }
             }
         }
 
-        return byteToHex(messageDigest.digest());
+        Map<String, String> hashes = new LinkedHashMap<>();
+        for (int i = 0; i < digests.length; i++) {
+            hashes.put(algorithms.get(i), toHex(digests[i].digest()));
+        }
+        return hashes;
     }
 
-    private String byteToHex(byte[] bytes) {
-        try (Formatter formatter = new Formatter()) {
-            for (final byte b : bytes) {
-                formatter.format("%02x", b);
+    /**
+     * Feeds the data to all the digests, on separate threads when there is enough of it to be worth it.
+     */
+    private static void update(MessageDigest[] digests, ByteBuffer data) {
+        if (digests.length == 1) {
+            digests[0].update(data);
+            return;
+        }
+        if (data.remaining() >= MAPPED_THRESHOLD) {
+            Arrays.stream(digests).parallel().forEach(digest -> digest.update(data.duplicate()));
+        } else {
+            for (MessageDigest digest : digests) {
+                digest.update(data.duplicate());
             }
-            return formatter.toString();
         }
+        data.position(data.limit());
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(hex);
     }
 }
@@ -0,0 +1,172 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.fs;
+
+import hudson.Util;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.MasterToSlaveFileCallable;
+import org.apache.tools.ant.DirectoryScanner;
+import org.apache.tools.ant.types.FileSet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Computes the hashes of all files matching a glob on the agent, on several threads.
+ */
+public class ComputeHashesCallable extends MasterToSlaveFileCallable<Map<String, String>> {
+    private static final long serialVersionUID = 1L;
+
+    private final TaskListener listener;
+    private final String glob;
+    private final String excludes;
+    private final String hashAlgorithm;
+    private final String manifest;
+    private final int parallelism;
+    private final String cacheFile;
+
+    /**
+     * @param listener the listener to log to
+     * @param glob Ant style pattern of the files to hash
+     * @param excludes Ant style pattern of the files to leave out, or <code>null</code>
+     * @param hashAlgorithm the name of the {@link java.security.MessageDigest} algorithm
+     * @param manifest the absolute path of the file to write the hashes to, or <code>null</code>
+     * @param parallelism the number of threads to hash with, 0 for the number of processors
+     * @param cacheFile the file of the {@link HashCache} to use, or <code>null</code> to always hash the files
+     */
+    public ComputeHashesCallable(TaskListener listener, String glob, String excludes, String hashAlgorithm,
+                                 String manifest, int parallelism, String cacheFile) {
+        this.listener = listener;
+        this.glob = glob;
+        this.excludes = excludes;
+        this.hashAlgorithm = hashAlgorithm;
+        this.manifest = manifest;
+        this.parallelism = parallelism;
+        this.cacheFile = cacheFile;
+    }
+
+    @Override
+    public Map<String, String> invoke(File dir, VirtualChannel channel) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        FileSet fs = Util.createFileSet(dir, glob, excludes);
+        DirectoryScanner scanner = fs.getDirectoryScanner(new org.apache.tools.ant.Project());
+        Path manifestPath = manifest == null ? null : Paths.get(manifest).normalize();
+        Path cachePath = cacheFile == null ? null : Paths.get(cacheFile).normalize();
+        List<String> paths = new ArrayList<>();
+        for (String path : scanner.getIncludedFiles()) {
+            Path file = dir.toPath().resolve(path).normalize();
+            if (file.equals(manifestPath) || file.equals(cachePath)) {
+                continue;
+            }
+            paths.add(path);
+        }
+
+        HashCache cache = cacheFile == null || paths.isEmpty() ? null : HashCache.load(cacheFile);
+        Map<String, String> hashes = hashFiles(dir, paths, hashAlgorithm, parallelism, cache);
+        if (cache != null) {
+            cache.save();
+        }
+
+        if (manifestPath != null) {
+            writeManifest(manifestPath, hashes);
+        }
+        listener.getLogger().printf("Hashed %d files in %d ms%n", hashes.size(), (System.nanoTime() - start) / 1_000_000);
+        return hashes;
+    }
+
+    /**
+     * Hashes files on a thread pool.
+     *
+     * @param dir the directory the paths are relative to
+     * @param paths the relative paths of the files to hash
+     * @param hashAlgorithm the name of the {@link java.security.MessageDigest} algorithm
+     * @param parallelism the number of threads to hash with, 0 for the number of processors
+     * @param cache the remembered hashes to use and add to, or <code>null</code> to always hash the files
+     * @return the hash in hex by path with <code>/</code> as separator, sorted by path
+     * @throws IOException if hashing a file fails
+     * @throws InterruptedException if interrupted while waiting for the hashes
+     */
+    static Map<String, String> hashFiles(File dir, List<String> paths, String hashAlgorithm, int parallelism, HashCache cache)
+            throws IOException, InterruptedException {
+        Map<String, String> hashes = new TreeMap<>();
+        if (paths.isEmpty()) {
+            return hashes;
+        }
+        int threads = Math.min(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(), paths.size());
+        ComputeHashCallable hasher = new ComputeHashCallable(hashAlgorithm);
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new NamingThreadFactory(new DaemonThreadFactory(), ComputeHashesCallable.class.getSimpleName()));
+        try {
+            List<Future<String>> futures = new ArrayList<>(paths.size());
+            for (String path : paths) {
+                File file = new File(dir, path);
+                futures.add(executor.submit(() -> cache == null ? hasher.hashOfFile(file) : cache.hashOfFile(file, hashAlgorithm)));
+            }
+            for (int i = 0; i < paths.size(); i++) {
+                hashes.put(paths.get(i).replace(File.separatorChar, '/'), futures.get(i).get());
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof NoSuchAlgorithmException) {
+                throw new IOException(cause.getMessage(), cause);
+            }
+            throw new IOException("Failed to hash the files in " + dir, cause);
+        } finally {
+            executor.shutdownNow();
+        }
+        return hashes;
+    }
+
+    /**
+     * Writes the hashes in the format read by <code>sha256sum --check</code> and friends.
+     */
+    private static void writeManifest(Path manifest, Map<String, String> hashes) throws IOException {
+        Path parent = manifest.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (Writer writer = Files.newBufferedWriter(manifest, StandardCharsets.UTF_8)) {
+            writeManifest(writer, hashes);
+        }
+    }
+
+    /**
+     * Writes the hashes in the format read by <code>sha256sum --check</code> and friends.
+     * Like those tools, a path with a backslash or a line break is written escaped, on a line starting with a backslash.
+     *
+     * @param writer where to write the lines
+     * @param hashes the hash by path
+     * @throws IOException if writing fails
+     */
+    static void writeManifest(Writer writer, Map<String, String> hashes) throws IOException {
+        for (Map.Entry<String, String> entry : hashes.entrySet()) {
+            String path = entry.getKey();
+            if (path.indexOf('\\') >= 0 || path.indexOf('\n') >= 0) {
+                writer.write('\\');
+                path = path.replace("\\", "\\\\").replace("\n", "\\n");
+            }
+            writer.write(entry.getValue());
+            writer.write("  ");
+            writer.write(path);
+            writer.write('\n');
+        }
+    }
+}
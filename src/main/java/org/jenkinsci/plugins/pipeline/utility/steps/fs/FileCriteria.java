@@ -0,0 +1,167 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.fs;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+
+/**
+ * The conditions besides the glob that the files found by {@link FindFilesStep} must meet,
+ * checked on the agent while walking so that only the matching files are sent back.
+ */
+class FileCriteria implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Finds any file, following symbolic links and reading only the basic attributes.
+     */
+    static final FileCriteria ANY = new FileCriteria(null, null, null, null, 0, true, false);
+
+    static final String FILE = "file";
+    static final String DIR = "dir";
+
+    private final String type;
+    private final Long minSize;
+    private final Long maxSize;
+    private final Long modifiedAfter;
+    private final int maxDepth;
+    private final boolean followSymlinks;
+    private final boolean extendedAttributes;
+
+    /**
+     * @param type {@link #FILE} or {@link #DIR} to find only files or only directories, <code>null</code> for the default
+     * @param minSize the minimum length of files in bytes, or <code>null</code>
+     * @param maxSize the maximum length of files in bytes, or <code>null</code>
+     * @param modifiedAfter the time in milliseconds since the epoch after which the files must have been modified, or <code>null</code>
+     * @param maxDepth the number of directories deep to look, 0 for all
+     * @param followSymlinks if symbolic links should be followed, else they are found as files themselves
+     * @param extendedAttributes if the permissions, inode and whether the file is a symbolic link should be read as well
+     */
+    FileCriteria(String type, Long minSize, Long maxSize, Long modifiedAfter, int maxDepth, boolean followSymlinks,
+                 boolean extendedAttributes) {
+        this.type = type;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.modifiedAfter = modifiedAfter;
+        this.maxDepth = maxDepth;
+        this.followSymlinks = followSymlinks;
+        this.extendedAttributes = extendedAttributes;
+    }
+
+    /**
+     * If only directories should be found.
+     *
+     * @return if the type is {@link #DIR}
+     */
+    boolean isDirectories() {
+        return DIR.equals(type);
+    }
+
+    /**
+     * If the file is of the type to find. Any type is if none was given.
+     *
+     * @param directory if the file is a directory
+     * @return if the type matches
+     */
+    boolean matchesType(boolean directory) {
+        return type == null || directory == isDirectories();
+    }
+
+    /**
+     * If the file meets the size and modification time conditions.
+     *
+     * @param attributes the attributes of the file
+     * @return if the file matches
+     */
+    boolean matches(BasicFileAttributes attributes) {
+        return matches(attributes.isDirectory(), attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+
+    /**
+     * If the file meets the size and modification time conditions. The size conditions don't apply to directories.
+     *
+     * @param directory if the file is a directory
+     * @param size the length of the file in bytes
+     * @param lastModified the modification time of the file in milliseconds since the epoch
+     * @return if the file matches
+     */
+    boolean matches(boolean directory, long size, long lastModified) {
+        if (!directory) {
+            if (minSize != null && size < minSize) {
+                return false;
+            }
+            if (maxSize != null && size > maxSize) {
+                return false;
+            }
+        }
+        return modifiedAfter == null || lastModified > modifiedAfter;
+    }
+
+    /**
+     * If files this many directories deep should be found.
+     *
+     * @param depth the number of names in the path of the file, 1 for those directly in the directory searched
+     * @return if the depth is within the maximum
+     */
+    boolean isWithinDepth(int depth) {
+        return maxDepth <= 0 || depth <= maxDepth;
+    }
+
+    /**
+     * Reads the attributes needed for the conditions and the {@link FileWrapper}, in one call.
+     *
+     * @param file the file
+     * @return the attributes
+     * @throws IOException if the file can't be read, like a broken symbolic link that is followed
+     */
+    BasicFileAttributes readAttributes(Path file) throws IOException {
+        if (extendedAttributes) {
+            try {
+                return Files.readAttributes(file, PosixFileAttributes.class, linkOptions());
+            } catch (UnsupportedOperationException e) {
+                // Not a POSIX file system, there are no permissions to read
+            }
+        }
+        return Files.readAttributes(file, BasicFileAttributes.class, linkOptions());
+    }
+
+    /**
+     * Describes the file.
+     *
+     * @param file the file
+     * @param path the path of the file relative to the directory searched
+     * @param attributes the attributes from {@link #readAttributes(Path)}
+     * @return the file info
+     */
+    FileWrapper toWrapper(Path file, String path, BasicFileAttributes attributes) {
+        String name = file.getFileName().toString();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        if (!extendedAttributes) {
+            return new FileWrapper(name, path, attributes.isDirectory(), attributes.size(), lastModified);
+        }
+        String permissions = null;
+        if (attributes instanceof PosixFileAttributes) {
+            permissions = PosixFilePermissions.toString(((PosixFileAttributes) attributes).permissions());
+        }
+        Long inode = null;
+        try {
+            Object ino = Files.getAttribute(file, "unix:ino", linkOptions());
+            if (ino instanceof Number) {
+                inode = ((Number) ino).longValue();
+            }
+        } catch (UnsupportedOperationException | IllegalArgumentException | IOException e) {
+            // Only known on Unix like systems
+        }
+        boolean symbolicLink = attributes.isSymbolicLink() || Files.isSymbolicLink(file);
+        return new FileWrapper(name, path, attributes.isDirectory(), attributes.size(), lastModified,
+                symbolicLink, permissions, inode);
+    }
+
+    private LinkOption[] linkOptions() {
+        return followSymlinks ? new LinkOption[0] : new LinkOption[] {LinkOption.NOFOLLOW_LINKS};
+    }
+}
@@ -0,0 +1,181 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.fs;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.Descriptor;
+import hudson.util.FormValidation;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes the hashes of a file with several algorithms while reading it only once.
+ */
+public class FileHashesStep extends Step {
+    private final String file;
+    private List<String> algorithms = new ArrayList<>();
+    private boolean cache = true;
+
+    @DataBoundConstructor
+    public FileHashesStep(String file) throws Descriptor.FormException {
+        if (StringUtils.isBlank(file)) {
+            throw new Descriptor.FormException("can't be blank", "file");
+        }
+        this.file = file;
+    }
+
+    /**
+     * The path of the file to hash.
+     *
+     * @return the path
+     */
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * The names of the hash algorithms, as known by {@link MessageDigest}.
+     *
+     * @return the algorithms
+     */
+    public List<String> getAlgorithms() {
+        return algorithms;
+    }
+
+    /**
+     * The names of the hash algorithms, as known by {@link MessageDigest}.
+     *
+     * @param algorithms the algorithms
+     */
+    @DataBoundSetter
+    public void setAlgorithms(List<String> algorithms) {
+        this.algorithms = algorithms == null ? new ArrayList<>() : new ArrayList<>(algorithms);
+    }
+
+    /**
+     * If hashes may be taken from those remembered for files that haven't changed since they were last hashed.
+     *
+     * @return if remembered hashes are used
+     */
+    public boolean isCache() {
+        return cache;
+    }
+
+    /**
+     * If hashes may be taken from those remembered for files that haven't changed since they were last hashed.
+     * Turn this off when a file may have been replaced by one with the same size and modification time.
+     *
+     * @param cache if remembered hashes are used
+     */
+    @DataBoundSetter
+    public void setCache(boolean cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * The distinct algorithms in {@link #getAlgorithms()}, in the order given, after checking that they are all known.
+     *
+     * @return the names of the algorithms
+     * @throws IllegalArgumentException if there are none, or some are blank or unknown
+     */
+    List<String> getAlgorithmList() {
+        if (algorithms.isEmpty()) {
+            throw new IllegalArgumentException("No hash algorithm given");
+        }
+        Set<String> list = new LinkedHashSet<>();
+        List<String> unknown = new ArrayList<>();
+        for (String algorithm : algorithms) {
+            if (StringUtils.isBlank(algorithm)) {
+                throw new IllegalArgumentException("Blank hash algorithm in " + algorithms);
+            }
+            try {
+                MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                unknown.add(algorithm);
+                continue;
+            }
+            list.add(algorithm);
+        }
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException((unknown.size() == 1 ? "Unknown hash algorithm " : "Unknown hash algorithms ")
+                    + String.join(", ", unknown));
+        }
+        return new ArrayList<>(list);
+    }
+
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new ExecutionImpl(this, context);
+    }
+
+    @Extension
+    public static class DescriptorImpl extends StepDescriptor {
+
+        public DescriptorImpl() {
+
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Collections.singleton(FilePath.class);
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "fileHashes";
+        }
+
+        @Override
+        @NonNull
+        public String getDisplayName() {
+            return "Compute the hashes of a given file with several algorithms";
+        }
+
+        @SuppressWarnings("unused")
+        public FormValidation doCheckFile(@QueryParameter String value) {
+            if (StringUtils.isBlank(value)) {
+                return FormValidation.error("Needs a value");
+            }
+            return FormValidation.ok();
+        }
+    }
+
+    /**
+     * The execution of {@link FileHashesStep}.
+     */
+    public static class ExecutionImpl extends SynchronousNonBlockingStepExecution<Map<String, String>> {
+        private static final long serialVersionUID = 1L;
+
+        private transient FileHashesStep step;
+
+        protected ExecutionImpl(@NonNull FileHashesStep step, @NonNull StepContext context) {
+            super(context);
+            this.step = step;
+        }
+
+        @Override
+        protected Map<String, String> run() throws Exception {
+            FilePath ws = getContext().get(FilePath.class);
+            assert ws != null;
+
+            List<String> algorithms = step.getAlgorithmList();
+            return ws.child(step.getFile()).act(new ComputeFileHashesCallable(algorithms, step.isCache() ? HashCache.fileFor(ws) : null));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.fs;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Collectors;
+
+/**
+ * The orders {@link FindFilesStep} can sort the files it finds in.
+ * Files that are equal in the order are sorted by path, so that paging through them is stable.
+ */
+public enum FileOrder {
+    PATH("path", Comparator.comparing(FileWrapper::getPath)),
+    NAME("name", Comparator.comparing(FileWrapper::getName)),
+    LENGTH("length", Comparator.comparingLong(FileWrapper::getLength)),
+    LAST_MODIFIED("lastModified", Comparator.comparingLong(FileWrapper::getLastModified));
+
+    private final String name;
+    private final Comparator<FileWrapper> comparator;
+
+    FileOrder(String name, Comparator<FileWrapper> comparator) {
+        this.name = name;
+        this.comparator = comparator.thenComparing(FileWrapper::getPath);
+    }
+
+    /**
+     * The name used for the <code>sortBy</code> parameter of the findFiles step.
+     *
+     * @return the name, the same as the property of {@link FileWrapper}
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Compares the files in this order.
+     *
+     * @param descending if the order should be reversed
+     * @return the comparator
+     */
+    public Comparator<FileWrapper> comparator(boolean descending) {
+        return descending ? comparator.reversed() : comparator;
+    }
+
+    /**
+     * Looks up the order by the name used for the <code>sortBy</code> parameter of the findFiles step.
+     *
+     * @param name the name, case insensitive
+     * @return the order
+     * @throws IllegalArgumentException if there is no order with that name
+     */
+    public static FileOrder fromName(String name) {
+        for (FileOrder order : values()) {
+            if (order.getName().equalsIgnoreCase(name.trim())) {
+                return order;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sort order " + name + ", should be one of "
+                + Arrays.stream(values()).map(FileOrder::getName).collect(Collectors.joining(", ")));
+    }
+}
@@ -24,6 +24,7 @@
 
 package org.jenkinsci.plugins.pipeline.utility.steps.fs;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.FilePath;
 import org.jenkinsci.plugins.scriptsecurity.sandbox.whitelists.Whitelisted;
@@ -46,12 +47,25 @@ public class FileWrapper implements Serializable {
     private final boolean directory;
     private final long length;
     private final long lastModified;
+    private final boolean symbolicLink;
+    @CheckForNull
+    private final String permissions;
+    @CheckForNull
+    private final Long inode;
 
     public FileWrapper(@NonNull String name, @NonNull String path, boolean directory, long length, long lastModified) {
+        this(name, path, directory, length, lastModified, false, null, null);
+    }
+
+    public FileWrapper(@NonNull String name, @NonNull String path, boolean directory, long length, long lastModified,
+                       boolean symbolicLink, @CheckForNull String permissions, @CheckForNull Long inode) {
         this.name = name;
         this.directory = directory;
         this.length = length;
         this.lastModified = lastModified;
+        this.symbolicLink = symbolicLink;
+        this.permissions = permissions;
+        this.inode = inode;
         if (directory && !path.endsWith("/")) {
             this.path = path + "/";
         } else {
@@ -96,6 +110,39 @@ public class FileWrapper implements Serializable {
         return lastModified;
     }
 
+    /**
+     * If the file is a symbolic link.
+     * Only known when the file was found by findFiles with <code>extendedAttributes</code>, else always false.
+     *
+     * @return if the file is a symbolic link
+     */
+    @Whitelisted
+    public boolean isSymbolicLink() {
+        return symbolicLink;
+    }
+
+    /**
+     * The POSIX permissions of the file, like <code>rwxr-xr-x</code>.
+     * Only known when the file was found by findFiles with <code>extendedAttributes</code> on a POSIX file system.
+     *
+     * @return the permissions, or <code>null</code> if not known
+     */
+    @Whitelisted @CheckForNull
+    public String getPermissions() {
+        return permissions;
+    }
+
+    /**
+     * The inode number of the file.
+     * Only known when the file was found by findFiles with <code>extendedAttributes</code> on a Unix like system.
+     *
+     * @return the inode, or <code>null</code> if not known
+     */
+    @Whitelisted @CheckForNull
+    public Long getInode() {
+        return inode;
+    }
+
     @Override @Whitelisted @NonNull
     public String toString() {
         return getPath();
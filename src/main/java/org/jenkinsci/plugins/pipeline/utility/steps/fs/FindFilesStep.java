@@ -27,6 +27,7 @@ package org.jenkinsci.plugins.pipeline.utility.steps.fs;
 import com.google.common.collect.ImmutableSet;
 import hudson.Extension;
 import hudson.FilePath;
+import hudson.Util;
 import hudson.model.TaskListener;
 import org.jenkinsci.plugins.workflow.steps.Step;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
@@ -45,6 +46,18 @@ import java.util.Set;
 public class FindFilesStep extends Step {
     private String glob;
     private String excludes;
+    private String sortBy;
+    private boolean descending;
+    private int offset;
+    private int limit;
+    private String outputFile;
+    private String type;
+    private Long minSize;
+    private Long maxSize;
+    private Long modifiedAfter;
+    private int maxDepth;
+    private boolean followSymlinks = true;
+    private boolean extendedAttributes;
 
     @DataBoundConstructor
     public FindFilesStep() {
@@ -93,6 +106,246 @@ public class FindFilesStep extends Step {
         this.excludes = excludes;
     }
 
+    /**
+     * The property of the files to sort them by, one of <code>path</code>, <code>name</code>, <code>length</code>
+     * or <code>lastModified</code>.
+     * When not set the files are in the order they are found in.
+     *
+     * @return the name of the {@link FileOrder}
+     */
+    public String getSortBy() {
+        return sortBy;
+    }
+
+    /**
+     * The property of the files to sort them by, one of <code>path</code>, <code>name</code>, <code>length</code>
+     * or <code>lastModified</code>.
+     * When not set the files are in the order they are found in.
+     *
+     * @param sortBy the name of the {@link FileOrder}
+     */
+    @DataBoundSetter
+    public void setSortBy(String sortBy) {
+        this.sortBy = Util.fixEmptyAndTrim(sortBy);
+    }
+
+    /**
+     * If the files should be sorted in descending order, with the longest or most recently modified first.
+     *
+     * @return if the order is descending
+     */
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * If the files should be sorted in descending order, with the longest or most recently modified first.
+     *
+     * @param descending if the order is descending
+     */
+    @DataBoundSetter
+    public void setDescending(boolean descending) {
+        this.descending = descending;
+    }
+
+    /**
+     * The number of files to skip, to page through the files together with {@link #getLimit()}.
+     *
+     * @return the number of files to skip
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * The number of files to skip, to page through the files together with {@link #getLimit()}.
+     *
+     * @param offset the number of files to skip
+     */
+    @DataBoundSetter
+    public void setOffset(int offset) {
+        this.offset = offset;
+    }
+
+    /**
+     * The maximum number of files to return, 0 for all of them.
+     *
+     * @return the maximum number of files
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * The maximum number of files to return, 0 for all of them.
+     *
+     * @param limit the maximum number of files
+     */
+    @DataBoundSetter
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * The file to write the found files to, one JSON object per line, instead of returning them.
+     * The step then only returns the number of files written,
+     * which keeps huge listings out of the memory of the controller and out of the program state of the build.
+     *
+     * @return the path of the file relative to the current working directory
+     */
+    public String getOutputFile() {
+        return outputFile;
+    }
+
+    /**
+     * The file to write the found files to, one JSON object per line, instead of returning them.
+     * The step then only returns the number of files written,
+     * which keeps huge listings out of the memory of the controller and out of the program state of the build.
+     *
+     * @param outputFile the path of the file relative to the current working directory
+     */
+    @DataBoundSetter
+    public void setOutputFile(String outputFile) {
+        this.outputFile = Util.fixEmptyAndTrim(outputFile);
+    }
+
+    /**
+     * Find only files, <code>file</code>, or only directories, <code>dir</code>.
+     * When not set only files are found with a glob, and both without one.
+     *
+     * @return the type of the files to find
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Find only files, <code>file</code>, or only directories, <code>dir</code>.
+     * When not set only files are found with a glob, and both without one.
+     *
+     * @param type the type of the files to find
+     */
+    @DataBoundSetter
+    public void setType(String type) {
+        this.type = Util.fixEmptyAndTrim(type);
+    }
+
+    /**
+     * The minimum length in bytes of the files to find. Doesn't apply to directories.
+     *
+     * @return the minimum length, or <code>null</code> for no minimum
+     */
+    public Long getMinSize() {
+        return minSize;
+    }
+
+    /**
+     * The minimum length in bytes of the files to find. Doesn't apply to directories.
+     *
+     * @param minSize the minimum length, or <code>null</code> for no minimum
+     */
+    @DataBoundSetter
+    public void setMinSize(Long minSize) {
+        this.minSize = minSize;
+    }
+
+    /**
+     * The maximum length in bytes of the files to find. Doesn't apply to directories.
+     *
+     * @return the maximum length, or <code>null</code> for no maximum
+     */
+    public Long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * The maximum length in bytes of the files to find. Doesn't apply to directories.
+     *
+     * @param maxSize the maximum length, or <code>null</code> for no maximum
+     */
+    @DataBoundSetter
+    public void setMaxSize(Long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Find only the files modified after this time, in milliseconds since the epoch like {@link FileWrapper#getLastModified()}.
+     *
+     * @return the time, or <code>null</code> for any time
+     */
+    public Long getModifiedAfter() {
+        return modifiedAfter;
+    }
+
+    /**
+     * Find only the files modified after this time, in milliseconds since the epoch like {@link FileWrapper#getLastModified()}.
+     *
+     * @param modifiedAfter the time, or <code>null</code> for any time
+     */
+    @DataBoundSetter
+    public void setModifiedAfter(Long modifiedAfter) {
+        this.modifiedAfter = modifiedAfter;
+    }
+
+    /**
+     * The number of directories deep to look, 1 for only the direct descendants of cwd. 0 looks at all depths.
+     *
+     * @return the maximum depth
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * The number of directories deep to look, 1 for only the direct descendants of cwd. 0 looks at all depths.
+     *
+     * @param maxDepth the maximum depth
+     */
+    @DataBoundSetter
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * If symbolic links should be followed, which is the default.
+     * When not, links to directories aren't walked into, and links are found as files with their own attributes.
+     *
+     * @return if symbolic links are followed
+     */
+    public boolean isFollowSymlinks() {
+        return followSymlinks;
+    }
+
+    /**
+     * If symbolic links should be followed, which is the default.
+     * When not, links to directories aren't walked into, and links are found as files with their own attributes.
+     *
+     * @param followSymlinks if symbolic links are followed
+     */
+    @DataBoundSetter
+    public void setFollowSymlinks(boolean followSymlinks) {
+        this.followSymlinks = followSymlinks;
+    }
+
+    /**
+     * If the POSIX permissions, the inode and whether the file is a symbolic link should be read as well.
+     *
+     * @return if the extended attributes are read
+     */
+    public boolean isExtendedAttributes() {
+        return extendedAttributes;
+    }
+
+    /**
+     * If the POSIX permissions, the inode and whether the file is a symbolic link should be read as well.
+     *
+     * @param extendedAttributes if the extended attributes are read
+     */
+    @DataBoundSetter
+    public void setExtendedAttributes(boolean extendedAttributes) {
+        this.extendedAttributes = extendedAttributes;
+    }
+
     @Extension
     public static class DescriptorImpl extends StepDescriptor {
 
@@ -26,12 +26,22 @@ package org.jenkinsci.plugins.pipeline.utility.steps.fs;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.FilePath;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
 import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
 
 import jakarta.inject.Inject;
-import java.util.Arrays;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -39,7 +49,7 @@ import java.util.List;
  *
  * @author Robert Sandell &lt;rsandell@cloudbees.com&gt;.
  */
-public class FindFilesStepExecution extends SynchronousNonBlockingStepExecution<FileWrapper[]> {
+public class FindFilesStepExecution extends SynchronousNonBlockingStepExecution<Object> {
     private static final long serialVersionUID = 1L;
 
     @Inject
@@ -51,19 +61,202 @@ public class FindFilesStepExecution extends SynchronousNonBlockingStepExecution<
     }
 
     @Override
-    protected FileWrapper[] run() throws Exception {
+    protected Object run() throws Exception {
         FilePath ws = getContext().get(FilePath.class);
         assert ws != null;
-        List<FilePath> list;
-        if (StringUtils.isBlank(step.getGlob())) {
-            list = ws.list();
-        } else {
-            list = Arrays.asList(ws.list(step.getGlob(), step.getExcludes()));
+        if (step.getOffset() < 0) {
+            throw new IllegalArgumentException("offset can't be negative");
         }
-        FileWrapper[] res = new FileWrapper[list.size()];
-        for(int i = 0; i < list.size(); i++) {
-            res[i] = new FileWrapper(ws, list.get(i));
+        if (step.getLimit() < 0) {
+            throw new IllegalArgumentException("limit can't be negative");
+        }
+        if (step.getMaxDepth() < 0) {
+            throw new IllegalArgumentException("maxDepth can't be negative");
+        }
+        String type = step.getType();
+        if (type != null && !type.equals(FileCriteria.FILE) && !type.equals(FileCriteria.DIR)) {
+            throw new IllegalArgumentException("Unknown type " + type + ", should be one of "
+                    + FileCriteria.FILE + ", " + FileCriteria.DIR);
+        }
+        FileCriteria criteria = new FileCriteria(type, step.getMinSize(), step.getMaxSize(), step.getModifiedAfter(),
+                step.getMaxDepth(), step.isFollowSymlinks(), step.isExtendedAttributes());
+        FileOrder order = step.getSortBy() == null ? null : FileOrder.fromName(step.getSortBy());
+        if (step.getOutputFile() == null) {
+            return ws.act(new FindFilesCallable(step.getGlob(), step.getExcludes(), criteria, order, step.isDescending(),
+                    step.getOffset(), step.getLimit(), null));
+        }
+        String outputFile = ws.child(step.getOutputFile()).getRemote();
+        return ws.act(new WriteFilesCallable(new FindFilesCallable(step.getGlob(), step.getExcludes(), criteria, order,
+                step.isDescending(), step.getOffset(), step.getLimit(), outputFile), outputFile));
+    }
+
+    /**
+     * Lists the files and reads their attributes on the agent,
+     * so that finding any number of files is a single call to the agent.
+     */
+    static class FindFilesCallable extends MasterToSlaveFileCallable<FileWrapper[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final String glob;
+        private final String excludes;
+        private final FileCriteria criteria;
+        private final FileOrder order;
+        private final boolean descending;
+        private final int offset;
+        private final int limit;
+        private final String ignored;
+
+        /**
+         * @param glob Ant style pattern of the files to find, or <code>null</code> for the direct children of the directory
+         * @param excludes Ant style pattern of the files to leave out, or <code>null</code>
+         * @param criteria the other conditions the files must meet
+         * @param order the order to sort the files in, or <code>null</code> to keep them in the order they are found
+         * @param descending if the order should be reversed
+         * @param offset the number of files to skip
+         * @param limit the maximum number of files to return, 0 for all
+         * @param ignored the absolute path of a file to never return, like the file the list is written to, or <code>null</code>
+         */
+        FindFilesCallable(String glob, String excludes, FileCriteria criteria, FileOrder order, boolean descending,
+                          int offset, int limit, String ignored) {
+            this.glob = glob;
+            this.excludes = excludes;
+            this.criteria = criteria;
+            this.order = order;
+            this.descending = descending;
+            this.offset = offset;
+            this.limit = limit;
+            this.ignored = ignored;
+        }
+
+        @Override
+        public FileWrapper[] invoke(File dir, VirtualChannel channel) throws IOException, InterruptedException {
+            if (!dir.isDirectory()) {
+                return new FileWrapper[0];
+            }
+            List<FileWrapper> found;
+            if (StringUtils.isBlank(glob)) {
+                String[] children = dir.list();
+                found = new ArrayList<>();
+                if (children != null) {
+                    for (String child : children) {
+                        FileWrapper file = toWrapper(new File(dir, child), child);
+                        if (file != null) {
+                            found.add(file);
+                        }
+                    }
+                }
+            } else {
+                found = new GlobScanner(glob, excludes, true, criteria).scan(dir);
+            }
+            Path ignoredPath = ignored == null ? null : Paths.get(ignored).normalize();
+            List<FileWrapper> res = new ArrayList<>(found.size());
+            for (FileWrapper file : found) {
+                if (!dir.toPath().resolve(file.getPath()).normalize().equals(ignoredPath)) {
+                    res.add(file);
+                }
+            }
+            if (order != null) {
+                res.sort(order.comparator(descending));
+            }
+            int from = Math.min(offset, res.size());
+            int to = limit > 0 ? (int) Math.min((long) from + limit, res.size()) : res.size();
+            return res.subList(from, to).toArray(new FileWrapper[0]);
+        }
+
+        /**
+         * Reads all the attributes of the file in one call.
+         * The files matching a glob get theirs from the {@link GlobScanner} instead.
+         *
+         * @return the file info, or <code>null</code> if the file doesn't meet the criteria
+         */
+        private FileWrapper toWrapper(File file, String path) {
+            try {
+                BasicFileAttributes attributes = criteria.readAttributes(file.toPath());
+                if (!criteria.matchesType(attributes.isDirectory()) || !criteria.matches(attributes)) {
+                    return null;
+                }
+                return criteria.toWrapper(file.toPath(), path, attributes);
+            } catch (IOException e) {
+                // Like a broken symbolic link, or deleted since it was listed
+                boolean directory = file.isDirectory();
+                long length = file.length();
+                long lastModified = file.lastModified();
+                if (!criteria.matchesType(directory) || !criteria.matches(directory, length, lastModified)) {
+                    return null;
+                }
+                return new FileWrapper(file.getName(), path, directory, length, lastModified);
+            }
+        }
+    }
+
+    /**
+     * Writes the found files to a file on the agent, one JSON object per line, instead of sending them to the controller.
+     */
+    static class WriteFilesCallable extends MasterToSlaveFileCallable<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final FindFilesCallable finder;
+        private final String outputFile;
+
+        /**
+         * @param finder finds the files
+         * @param outputFile the absolute path of the file to write the files to
+         */
+        WriteFilesCallable(FindFilesCallable finder, String outputFile) {
+            this.finder = finder;
+            this.outputFile = outputFile;
+        }
+
+        @Override
+        public Integer invoke(File dir, VirtualChannel channel) throws IOException, InterruptedException {
+            FileWrapper[] files = finder.invoke(dir, channel);
+            Path output = Paths.get(outputFile);
+            Path parent = output.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+                for (FileWrapper file : files) {
+                    writer.write("{\"name\":");
+                    writeString(writer, file.getName());
+                    writer.write(",\"path\":");
+                    writeString(writer, file.getPath());
+                    writer.write(",\"directory\":" + file.isDirectory());
+                    writer.write(",\"length\":" + file.getLength());
+                    writer.write(",\"lastModified\":" + file.getLastModified());
+                    if (file.isSymbolicLink()) {
+                        writer.write(",\"symbolicLink\":true");
+                    }
+                    if (file.getPermissions() != null) {
+                        writer.write(",\"permissions\":");
+                        writeString(writer, file.getPermissions());
+                    }
+                    if (file.getInode() != null) {
+                        writer.write(",\"inode\":" + file.getInode());
+                    }
+                    writer.write("}\n");
+                }
+            }
+            return files.length;
+        }
+
+        /**
+         * Writes the value as a quoted and escaped JSON string.
+         */
+        private static void writeString(Writer writer, String value) throws IOException {
+            writer.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    writer.write('\\');
+                    writer.write(c);
+                } else if (c < 0x20) {
+                    writer.write(String.format("\\u%04x", (int) c));
+                } else {
+                    writer.write(c);
+                }
+            }
+            writer.write('"');
         }
-        return res;
     }
 }
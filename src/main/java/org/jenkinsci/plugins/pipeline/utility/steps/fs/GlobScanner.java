@@ -0,0 +1,336 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.fs;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import jenkins.util.SystemProperties;
+import org.apache.tools.ant.DirectoryScanner;
+import org.apache.tools.ant.types.selectors.SelectorUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.StringTokenizer;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds the files matching Ant style include and exclude patterns, like the {@link DirectoryScanner} of
+ * {@link hudson.Util#createFileSet(File, String, String)}, but walking independent directories in parallel.
+ *
+ * The walk only starts in the literal directory prefixes of the includes,
+ * like <code>src/main</code> for <code>src/main/&#42;&#42;/&#42;.java</code>.
+ * It doesn't enter directories below which no include can match, or whose whole content is excluded.
+ * The patterns are matched by Ant's {@link SelectorUtils}, so they mean what they mean for the scanner.
+ * Unlike the scanner the files are found in a stable order, sorted by name within each directory.
+ * The {@link FileCriteria} are checked during the walk as well, and prune it at the maximum depth.
+ */
+class GlobScanner {
+    /**
+     * The number of threads to walk the directories with.
+     */
+    static /*almost final*/ int PARALLELISM = SystemProperties.getInteger(GlobScanner.class.getName() + ".PARALLELISM",
+            Runtime.getRuntime().availableProcessors());
+
+    private final List<String> includes = new ArrayList<>();
+    /**
+     * The number of directories deep each include can match, {@link Integer#MAX_VALUE} for those with <code>&#42;&#42;</code>.
+     */
+    private final List<Integer> includeDepths = new ArrayList<>();
+    private final List<String> excludes = new ArrayList<>();
+    /**
+     * The excludes ending with <code>&#42;&#42;</code>, without it, to match the directories whose whole content is excluded.
+     */
+    private final List<String> excludedTrees = new ArrayList<>();
+    private final FileCriteria criteria;
+
+    /**
+     * @param includes comma separated Ant style patterns of the files to find, all files if blank
+     * @param excludes comma separated Ant style patterns of the files to leave out, or <code>null</code>
+     * @param defaultExcludes if the {@link DirectoryScanner#getDefaultExcludes()} should be left out as well
+     * @param criteria the other conditions the files must meet.
+     *                 Only files are found, like by the directory scanner, unless the criteria ask for directories.
+     */
+    GlobScanner(String includes, String excludes, boolean defaultExcludes, FileCriteria criteria) {
+        this.criteria = criteria;
+        for (String include : split(includes)) {
+            this.includes.add(normalize(include));
+        }
+        if (this.includes.isEmpty()) {
+            this.includes.add(SelectorUtils.DEEP_TREE_MATCH);
+        }
+        for (String include : this.includes) {
+            String[] tokens = SelectorUtils.tokenizePathAsArray(include);
+            includeDepths.add(Arrays.asList(tokens).contains(SelectorUtils.DEEP_TREE_MATCH) ? Integer.MAX_VALUE : tokens.length);
+        }
+        List<String> allExcludes = split(excludes);
+        if (defaultExcludes) {
+            Collections.addAll(allExcludes, DirectoryScanner.getDefaultExcludes());
+        }
+        for (String exclude : allExcludes) {
+            String pattern = normalize(exclude);
+            this.excludes.add(pattern);
+            String tree = File.separator + SelectorUtils.DEEP_TREE_MATCH;
+            if (pattern.endsWith(tree)) {
+                this.excludedTrees.add(pattern.substring(0, pattern.length() - tree.length()));
+            }
+        }
+    }
+
+    /**
+     * Finds the matching files and reads their attributes.
+     *
+     * @param dir the directory to search
+     * @return the files, with their paths relative to the directory
+     */
+    List<FileWrapper> scan(File dir) {
+        List<FileWrapper> files = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, PARALLELISM));
+        try {
+            for (String root : roots()) {
+                Path start = root.isEmpty() ? dir.toPath() : dir.toPath().resolve(root);
+                if (Files.isDirectory(start) && !isContentExcludedUpTo(root)) {
+                    int depth = root.isEmpty() ? 0 : SelectorUtils.tokenizePathAsArray(root).length;
+                    files.addAll(pool.invoke(new Walk(start, root, depth)));
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return files;
+    }
+
+    /**
+     * The directories to start walking in: the literal prefixes of the includes, leaving out those within another.
+     */
+    private List<String> roots() {
+        TreeSet<String> prefixes = new TreeSet<>();
+        for (String include : includes) {
+            prefixes.add(literalPrefix(include));
+        }
+        List<String> roots = new ArrayList<>();
+        for (String prefix : prefixes) {
+            boolean within = false;
+            for (String root : roots) {
+                if (root.isEmpty() || prefix.equals(root) || prefix.startsWith(root + File.separator)) {
+                    within = true;
+                    break;
+                }
+            }
+            if (!within) {
+                roots.add(prefix);
+            }
+        }
+        return roots;
+    }
+
+    /**
+     * The leading directories of the pattern without any wildcards,
+     * or an empty string if the pattern could match outside of them.
+     */
+    static String literalPrefix(String pattern) {
+        if (pattern.startsWith(File.separator)) {
+            return "";
+        }
+        List<String> tokens = new ArrayList<>();
+        StringTokenizer tokenizer = new StringTokenizer(pattern, File.separator);
+        while (tokenizer.hasMoreTokens()) {
+            tokens.add(tokenizer.nextToken());
+        }
+        StringBuilder prefix = new StringBuilder();
+        // The last token names the file, so it is never a directory to start in
+        for (int i = 0; i < tokens.size() - 1; i++) {
+            String token = tokens.get(i);
+            if (SelectorUtils.hasWildcards(token) || token.equals(".") || token.equals("..")) {
+                break;
+            }
+            if (prefix.length() > 0) {
+                prefix.append(File.separatorChar);
+            }
+            prefix.append(token);
+        }
+        return prefix.toString();
+    }
+
+    private boolean isIncluded(String path) {
+        for (String include : includes) {
+            if (SelectorUtils.matchPath(include, path, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isExcluded(String path) {
+        for (String exclude : excludes) {
+            if (SelectorUtils.matchPath(exclude, path, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * If any include could match a file below the directory.
+     */
+    private boolean couldHoldIncluded(String path) {
+        int depth = SelectorUtils.tokenizePathAsArray(path).length;
+        for (int i = 0; i < includes.size(); i++) {
+            String include = includes.get(i);
+            if (includeDepths.get(i) > depth && SelectorUtils.matchPatternStart(include, path, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * If every file below the directory is excluded.
+     */
+    private boolean isContentExcluded(String path) {
+        for (String tree : excludedTrees) {
+            if (SelectorUtils.matchPath(tree, path, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * If the content of the directory, or of any directory above it, is excluded.
+     */
+    private boolean isContentExcludedUpTo(String path) {
+        for (int end = path.indexOf(File.separatorChar); end != -1; end = path.indexOf(File.separatorChar, end + 1)) {
+            if (isContentExcluded(path.substring(0, end))) {
+                return true;
+            }
+        }
+        return !path.isEmpty() && isContentExcluded(path);
+    }
+
+    private static List<String> split(String patterns) {
+        List<String> list = new ArrayList<>();
+        if (patterns != null) {
+            // The same tokens as Util.createFileSet
+            StringTokenizer tokens = new StringTokenizer(patterns, ",");
+            while (tokens.hasMoreTokens()) {
+                String token = tokens.nextToken().trim();
+                if (!token.isEmpty()) {
+                    list.add(token);
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Normalizes the pattern the same way Ant does, with the separator of the platform
+     * and <code>&#42;&#42;</code> added to a trailing separator.
+     */
+    private static String normalize(String pattern) {
+        String normalized = pattern.replace('/', File.separatorChar).replace('\\', File.separatorChar);
+        if (normalized.endsWith(File.separator)) {
+            normalized += SelectorUtils.DEEP_TREE_MATCH;
+        }
+        return normalized;
+    }
+
+    /**
+     * Walks one directory, forking a walk for each subdirectory.
+     */
+    @SuppressFBWarnings(value={"SE_BAD_FIELD_INNER_CLASS"}, justification="Fork join tasks are never serialized.")
+    private class Walk extends RecursiveTask<List<FileWrapper>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Path dir;
+        private final String path;
+        private final int depth;
+
+        /**
+         * @param dir the directory
+         * @param path the path of the directory relative to the one being scanned, empty for that one
+         * @param depth the number of names in the path
+         */
+        Walk(Path dir, String path, int depth) {
+            this.dir = dir;
+            this.path = path;
+            this.depth = depth;
+        }
+
+        @Override
+        protected List<FileWrapper> compute() {
+            List<Path> children = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path child : stream) {
+                    children.add(child);
+                }
+            } catch (IOException e) {
+                // Like the directory scanner, skip what can't be read
+                return Collections.emptyList();
+            }
+            children.sort(Comparator.comparing(child -> child.getFileName().toString()));
+
+            // The files found and the walks of the subdirectories, in order
+            List<Object> found = new ArrayList<>();
+            for (Path child : children) {
+                String name = child.getFileName().toString();
+                String childPath = path.isEmpty() ? name : path + File.separator + name;
+                BasicFileAttributes attributes;
+                try {
+                    attributes = criteria.readAttributes(child);
+                } catch (IOException e) {
+                    // A broken symbolic link, or deleted while walking
+                    continue;
+                }
+                if (attributes.isDirectory()) {
+                    if (criteria.isDirectories() && isFound(childPath, attributes)) {
+                        found.add(criteria.toWrapper(child, childPath, attributes));
+                    }
+                    if (criteria.isWithinDepth(depth + 2) && couldHoldIncluded(childPath) && !isContentExcluded(childPath)
+                            && !isLoop(child)) {
+                        found.add(new Walk(child, childPath, depth + 1).fork());
+                    }
+                } else if (!criteria.isDirectories() && isFound(childPath, attributes)) {
+                    // Like the directory scanner, anything that isn't a directory is a file, fifos and sockets included
+                    found.add(criteria.toWrapper(child, childPath, attributes));
+                }
+            }
+
+            List<FileWrapper> files = new ArrayList<>();
+            for (Object item : found) {
+                if (item instanceof Walk) {
+                    files.addAll(((Walk) item).join());
+                } else {
+                    files.add((FileWrapper) item);
+                }
+            }
+            return files;
+        }
+
+        private boolean isFound(String childPath, BasicFileAttributes attributes) {
+            return criteria.isWithinDepth(depth + 1) && isIncluded(childPath) && !isExcluded(childPath)
+                    && criteria.matches(attributes);
+        }
+
+        /**
+         * If the directory is a symbolic link to this directory or one above it, which would make the walk endless.
+         */
+        private boolean isLoop(Path child) {
+            if (!Files.isSymbolicLink(child)) {
+                return false;
+            }
+            try {
+                return dir.toRealPath().startsWith(child.toRealPath());
+            } catch (IOException e) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.fs;
+
+import hudson.FilePath;
+import hudson.slaves.WorkspaceList;
+import jenkins.util.SystemProperties;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hashes of files on the agent that are remembered between steps, so that hashing a file that hasn't changed
+ * since the last time is only a stat call.
+ *
+ * An entry is only used if the size, the modification time and the file key (the inode where there is one)
+ * of the file are still the same as when it was hashed.
+ * Files modified in the last couple of seconds are hashed but not remembered,
+ * as they could still change again within the resolution of the modification time.
+ */
+class HashCache {
+    /**
+     * Set to true to never remember any hashes, whatever the steps ask for with their <code>cache</code> parameter.
+     */
+    static /*almost final*/ boolean DISABLED = SystemProperties.getBoolean(HashCache.class.getName() + ".DISABLED", false);
+    /**
+     * The number of hashes to remember per workspace, the least recently used are forgotten first.
+     */
+    static /*almost final*/ int MAX_ENTRIES = SystemProperties.getInteger(HashCache.class.getName() + ".MAX_ENTRIES", 10000);
+
+    private static final int MAGIC = 0x48534831; // HSH1
+    private static final long RACY_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private final Path file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private volatile boolean modified;
+
+    private HashCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * The file to keep the hashes for files in and below the directory in, in the temporary directory next to it.
+     *
+     * @param dir the workspace or current directory of the step
+     * @return the path on the agent, or <code>null</code> if hashes shouldn't be remembered
+     */
+    static String fileFor(FilePath dir) {
+        if (DISABLED) {
+            return null;
+        }
+        FilePath tmp = WorkspaceList.tempDir(dir);
+        return tmp == null ? null : tmp.child("hashes.cache").getRemote();
+    }
+
+    /**
+     * Reads the remembered hashes. A missing or unreadable file is the same as an empty cache.
+     *
+     * @param file the file from {@link #fileFor(FilePath)}
+     * @return the cache
+     */
+    static HashCache load(String file) {
+        HashCache cache = new HashCache(Paths.get(file));
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cache.file)))) {
+            if (in.readInt() != MAGIC) {
+                return cache;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                Entry entry = new Entry(in.readLong(), in.readLong(), in.readUTF(), in.readUTF(), in.readLong());
+                cache.entries.put(key, entry);
+                cache.clock.accumulateAndGet(entry.lastUsed, Math::max);
+            }
+        } catch (NoSuchFileException e) {
+            // Nothing remembered yet
+        } catch (IOException e) {
+            // Corrupt or from another version, start over
+            cache.entries.clear();
+        }
+        return cache;
+    }
+
+    /**
+     * Gets the remembered hash of the file if it hasn't changed, or else computes and remembers it.
+     *
+     * @param file the file to hash
+     * @param algorithm the name of the {@link java.security.MessageDigest} algorithm
+     * @return the hash in hex
+     * @throws IOException if reading the file fails
+     * @throws NoSuchAlgorithmException if the algorithm doesn't exist
+     */
+    String hashOfFile(File file, String algorithm) throws IOException, NoSuchAlgorithmException {
+        return hashesOfFile(file, Collections.singletonList(algorithm)).get(algorithm);
+    }
+
+    /**
+     * Gets the remembered hashes of the file if it hasn't changed,
+     * and computes and remembers the missing ones in one read of the file.
+     *
+     * @param file the file to hash
+     * @param algorithms the names of the {@link java.security.MessageDigest} algorithms
+     * @return the hash in hex by algorithm, in the order of the algorithms
+     * @throws IOException if reading the file fails
+     * @throws NoSuchAlgorithmException if one of the algorithms doesn't exist
+     */
+    Map<String, String> hashesOfFile(File file, List<String> algorithms) throws IOException, NoSuchAlgorithmException {
+        Path path = file.toPath().toRealPath();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long modifiedNanos = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        String fileKey = String.valueOf(attributes.fileKey());
+        Map<String, String> hashes = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String algorithm : algorithms) {
+            Entry entry = entries.get(algorithm + ':' + path);
+            if (entry != null && entry.size == attributes.size() && entry.modified == modifiedNanos && entry.fileKey.equals(fileKey)) {
+                // Not worth writing the cache for on its own, the order is saved with the next new hash
+                entry.lastUsed = clock.incrementAndGet();
+                hashes.put(algorithm, entry.hash);
+            } else {
+                hashes.put(algorithm, null);
+                missing.add(algorithm);
+            }
+        }
+        if (missing.isEmpty()) {
+            return hashes;
+        }
+        Map<String, String> computed = ComputeHashCallable.hashesOfFile(file, missing);
+        hashes.putAll(computed);
+        if (TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - modifiedNanos > RACY_NANOS) {
+            for (Map.Entry<String, String> hash : computed.entrySet()) {
+                entries.put(hash.getKey() + ':' + path, new Entry(attributes.size(), modifiedNanos, fileKey, hash.getValue(), clock.incrementAndGet()));
+            }
+            modified = true;
+        }
+        return hashes;
+    }
+
+    /**
+     * Writes the remembered hashes back to the file if any were added,
+     * keeping only the {@link #MAX_ENTRIES} most recently used.
+     * Failing to write is ignored, the hashes are just computed again the next time.
+     */
+    void save() {
+        if (!modified) {
+            return;
+        }
+        try {
+            write();
+        } catch (IOException e) {
+            // Best effort
+        }
+    }
+
+    private void write() throws IOException {
+        List<Map.Entry<String, Entry>> sorted = new ArrayList<>(entries.entrySet());
+        sorted.sort(Comparator.comparingLong((Map.Entry<String, Entry> e) -> e.getValue().lastUsed).reversed());
+        if (sorted.size() > MAX_ENTRIES) {
+            sorted = sorted.subList(0, MAX_ENTRIES);
+        }
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(sorted.size());
+                for (Map.Entry<String, Entry> e : sorted) {
+                    Entry entry = e.getValue();
+                    out.writeUTF(e.getKey());
+                    out.writeLong(entry.size);
+                    out.writeLong(entry.modified);
+                    out.writeUTF(entry.fileKey);
+                    out.writeUTF(entry.hash);
+                    out.writeLong(entry.lastUsed);
+                }
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static final class Entry {
+        final long size;
+        final long modified;
+        final String fileKey;
+        final String hash;
+        volatile long lastUsed;
+
+        Entry(long size, long modified, String fileKey, String hash, long lastUsed) {
+            this.size = size;
+            this.modified = modified;
+            this.fileKey = fileKey;
+            this.hash = hash;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
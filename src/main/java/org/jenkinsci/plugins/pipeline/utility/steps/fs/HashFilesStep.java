@@ -0,0 +1,225 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.fs;
+
+import com.google.common.collect.ImmutableSet;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Descriptor;
+import hudson.model.TaskListener;
+import hudson.util.FormValidation;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes the hashes of all files matching a glob in one call to the agent.
+ */
+public class HashFilesStep extends Step {
+    private final String glob;
+    private String excludes;
+    private String algorithm = "SHA-256";
+    private String manifest;
+    private Integer parallelism;
+    private boolean cache = true;
+
+    @DataBoundConstructor
+    public HashFilesStep(String glob) throws Descriptor.FormException {
+        if (StringUtils.isBlank(glob)) {
+            throw new Descriptor.FormException("can't be blank", "glob");
+        }
+        this.glob = glob;
+    }
+
+    /**
+     * Ant style pattern of the files to hash.
+     *
+     * @return the pattern
+     */
+    public String getGlob() {
+        return glob;
+    }
+
+    /**
+     * Ant style pattern of files to leave out.
+     *
+     * @return the pattern
+     */
+    public String getExcludes() {
+        return excludes;
+    }
+
+    /**
+     * Ant style pattern of files to leave out.
+     *
+     * @param excludes the pattern
+     */
+    @DataBoundSetter
+    public void setExcludes(String excludes) {
+        this.excludes = Util.fixEmptyAndTrim(excludes);
+    }
+
+    /**
+     * The name of the hash algorithm, as known by {@link MessageDigest}.
+     *
+     * @return the algorithm
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * The name of the hash algorithm, as known by {@link MessageDigest}.
+     * Defaults to SHA-256.
+     *
+     * @param algorithm the algorithm
+     */
+    @DataBoundSetter
+    public void setAlgorithm(String algorithm) {
+        this.algorithm = StringUtils.isBlank(algorithm) ? "SHA-256" : algorithm.trim();
+    }
+
+    /**
+     * Optional file to write the hashes to, in the format of <code>sha256sum</code> and friends.
+     *
+     * @return the path of the file
+     */
+    public String getManifest() {
+        return manifest;
+    }
+
+    /**
+     * Optional file to write the hashes to, in the format of <code>sha256sum</code> and friends.
+     *
+     * @param manifest the path of the file
+     */
+    @DataBoundSetter
+    public void setManifest(String manifest) {
+        this.manifest = Util.fixEmptyAndTrim(manifest);
+    }
+
+    /**
+     * The number of threads to hash the files with.
+     * <code>null</code> for the number of processors of the agent.
+     *
+     * @return the number of threads
+     */
+    public Integer getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * The number of threads to hash the files with.
+     * <code>null</code> for the number of processors of the agent.
+     *
+     * @param parallelism the number of threads
+     */
+    @DataBoundSetter
+    public void setParallelism(Integer parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * If hashes may be taken from those remembered for files that haven't changed since they were last hashed.
+     *
+     * @return if remembered hashes are used
+     */
+    public boolean isCache() {
+        return cache;
+    }
+
+    /**
+     * If hashes may be taken from those remembered for files that haven't changed since they were last hashed.
+     * Turn this off when a file may have been replaced by one with the same size and modification time.
+     *
+     * @param cache if remembered hashes are used
+     */
+    @DataBoundSetter
+    public void setCache(boolean cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new ExecutionImpl(this, context);
+    }
+
+    @Extension
+    public static class DescriptorImpl extends StepDescriptor {
+
+        public DescriptorImpl() {
+
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return ImmutableSet.of(TaskListener.class, FilePath.class);
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "hashFiles";
+        }
+
+        @Override
+        @NonNull
+        public String getDisplayName() {
+            return "Compute the hashes of the files matching a pattern";
+        }
+
+        @SuppressWarnings("unused")
+        public FormValidation doCheckGlob(@QueryParameter String value) {
+            if (StringUtils.isBlank(value)) {
+                return FormValidation.error("Needs a value");
+            }
+            return FormValidation.ok();
+        }
+    }
+
+    /**
+     * The execution of {@link HashFilesStep}.
+     */
+    public static class ExecutionImpl extends SynchronousNonBlockingStepExecution<Map<String, String>> {
+        private static final long serialVersionUID = 1L;
+
+        private transient HashFilesStep step;
+
+        protected ExecutionImpl(@NonNull HashFilesStep step, @NonNull StepContext context) {
+            super(context);
+            this.step = step;
+        }
+
+        @Override
+        protected Map<String, String> run() throws Exception {
+            FilePath ws = getContext().get(FilePath.class);
+            assert ws != null;
+            TaskListener listener = getContext().get(TaskListener.class);
+            assert listener != null;
+
+            try {
+                MessageDigest.getInstance(step.getAlgorithm());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalArgumentException("Unknown hash algorithm " + step.getAlgorithm(), e);
+            }
+            if (step.getParallelism() != null && step.getParallelism() < 1) {
+                throw new IllegalArgumentException("parallelism must be at least 1, was " + step.getParallelism());
+            }
+
+            String manifest = step.getManifest() == null ? null : ws.child(step.getManifest()).getRemote();
+            String cacheFile = step.isCache() ? HashCache.fileFor(ws) : null;
+            return ws.act(new ComputeHashesCallable(listener, step.getGlob(), step.getExcludes(), step.getAlgorithm(),
+                    manifest, step.getParallelism() == null ? 0 : step.getParallelism(), cacheFile));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.fs;
+
+import hudson.console.ConsoleNote;
+import hudson.console.LineTransformationOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Writes only the lines that contain the include pattern and not the exclude pattern,
+ * and collects the first of the lines written.
+ * The patterns are matched against the text of the line, without the console annotations or the line end.
+ */
+class LineFilterOutputStream extends LineTransformationOutputStream.Delegating {
+    private final Pattern include;
+    private final Pattern exclude;
+    private final int maxMatches;
+    private final List<String> matches;
+
+    /**
+     * @param out the stream to write the lines to
+     * @param include the pattern found in the lines to write, or <code>null</code> to write all
+     * @param exclude the pattern found in the lines not to write, or <code>null</code>
+     * @param maxMatches the number of the first lines written to collect
+     * @param matches the list to add the lines to, the text the patterns were matched against
+     */
+    LineFilterOutputStream(OutputStream out, Pattern include, Pattern exclude, int maxMatches, List<String> matches) {
+        super(out);
+        this.include = include;
+        this.exclude = exclude;
+        this.maxMatches = maxMatches;
+        this.matches = matches;
+    }
+
+    @Override
+    protected void eol(byte[] b, int len) throws IOException {
+        String line = ConsoleNote.removeNotes(trimEOL(new String(b, 0, len, StandardCharsets.UTF_8)));
+        if (include != null && !include.matcher(line).find()) {
+            return;
+        }
+        if (exclude != null && exclude.matcher(line).find()) {
+            return;
+        }
+        out.write(b, 0, len);
+        if (matches.size() < maxMatches) {
+            matches.add(line);
+        }
+    }
+}
@@ -24,8 +24,17 @@
 
 package org.jenkinsci.plugins.pipeline.utility.steps.fs;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Collections;
 import java.util.Set;
 
@@ -43,7 +52,9 @@ import org.kohsuke.stapler.QueryParameter;
 import hudson.Extension;
 import hudson.FilePath;
 import hudson.model.Descriptor;
+import hudson.remoting.VirtualChannel;
 import hudson.util.FormValidation;
+import jenkins.MasterToSlaveFileCallable;
 
 /**
  * Prepend given content to a given file.
@@ -147,18 +158,76 @@ public class PrependToFileStep extends Step {
 			final FilePath ws = this.getContext().get(FilePath.class);
 			assert ws != null;
 			final FilePath file = ws.child(this.step.getFile());
-			FilePath parent = file.getParent();
-			if (!file.exists() && parent != null) {
-				parent.mkdirs();
-				file.touch(System.currentTimeMillis());
-			} else if (parent == null) {
+			if (file.getParent() == null) {
 				throw new IOException("No parent path for " + file.getRemote());
 			}
-			final String content = this.step.getContent();
-			final String originalContent = file.readToString();
-			final String newContent = content + originalContent;
-			file.write(newContent, StandardCharsets.UTF_8.name());
+			file.act(new PrependCallable(this.step.getContent()));
 			return new FileWrapper(file);
 		}
 	}
+
+	/**
+	 * Prepends the content on the agent without reading the file into memory.
+	 * The content is written to a temporary file next to it, the file is appended to that,
+	 * and the temporary file is then moved over the file.
+	 * A symbolic link is followed, so that the file it points to is replaced rather than the link.
+	 * The content is encoded in UTF-8 and the original bytes are kept as they are.
+	 */
+	static class PrependCallable extends MasterToSlaveFileCallable<Void> {
+		private static final long serialVersionUID = 1L;
+
+		private final String content;
+
+		PrependCallable(final String content) {
+			this.content = content;
+		}
+
+		@Override
+		public Void invoke(File f, VirtualChannel channel) throws IOException, InterruptedException {
+			Path file = f.getAbsoluteFile().toPath();
+			Files.createDirectories(file.getParent());
+			if (Files.notExists(file, LinkOption.NOFOLLOW_LINKS)) {
+				// Created like touch would, with the default permissions, which the temporary file then takes over
+				Files.createFile(file);
+			}
+			file = file.toRealPath();
+			final Path temp = Files.createTempFile(file.getParent(), "." + file.getFileName(), ".tmp");
+			try {
+				try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+					final ByteBuffer buffer = ByteBuffer.wrap(this.content.getBytes(StandardCharsets.UTF_8));
+					while (buffer.hasRemaining()) {
+						out.write(buffer);
+					}
+					try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+						final long size = in.size();
+						long position = 0;
+						while (position < size) {
+							position += in.transferTo(position, size - position, out);
+						}
+					}
+				}
+				copyPermissions(file, temp);
+				try {
+					Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+				}
+			} catch (IOException | RuntimeException e) {
+				Files.deleteIfExists(temp);
+				throw e;
+			}
+			return null;
+		}
+
+		/**
+		 * The temporary file is only readable by its owner, give it the permissions of the file it replaces.
+		 */
+		private static void copyPermissions(final Path from, final Path to) throws IOException {
+			try {
+				Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+			} catch (UnsupportedOperationException e) {
+				// Not a POSIX file system, the temporary file gets the default permissions
+			}
+		}
+	}
 }
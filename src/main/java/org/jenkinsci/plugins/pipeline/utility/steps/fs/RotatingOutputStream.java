@@ -0,0 +1,100 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.fs;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.jenkinsci.plugins.pipeline.utility.steps.tar.TarCompression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends to a file, compressing what is written and rotating the file once it has grown to a maximum size.
+ *
+ * A rotated file gets the suffix <code>.1</code>, the one rotated before it <code>.2</code> and so on.
+ * The size is that of the file on disk, so with compression it is only known once the compressor has written its output,
+ * and files end up somewhat larger than the maximum.
+ * Appending to a compressed file adds a new gzip member or zstd frame to it, which the tools read as one stream.
+ */
+class RotatingOutputStream extends OutputStream {
+    private final Path file;
+    private final TarCompression compression;
+    private final long maxSize;
+    private final int maxFiles;
+
+    private CountingOutputStream counter;
+    private OutputStream out;
+    private long size;
+
+    /**
+     * @param file the file to append to
+     * @param compression the compression of the file
+     * @param maxSize the size in bytes at which the file is rotated, 0 to never rotate it
+     * @param maxFiles the number of rotated files to keep, the older are deleted, 0 to keep all
+     * @throws IOException if the file could not be opened
+     */
+    RotatingOutputStream(Path file, TarCompression compression, long maxSize, int maxFiles) throws IOException {
+        this.file = file;
+        this.compression = compression;
+        this.maxSize = maxSize;
+        this.maxFiles = maxFiles;
+        open();
+    }
+
+    private void open() throws IOException {
+        size = Files.exists(file) ? Files.size(file) : 0;
+        counter = new CountingOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        out = compression.compress(counter, null, 1);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (maxSize > 0 && size + counter.getByteCount() >= maxSize) {
+            rotate();
+        }
+        out.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Closes the file, which finishes its compression, shifts it and the older files along, and starts a new one.
+     */
+    private void rotate() throws IOException {
+        out.close();
+        int last = maxFiles;
+        if (last <= 0) {
+            last = 1;
+            while (Files.exists(rotated(last))) {
+                last++;
+            }
+        }
+        Files.deleteIfExists(rotated(last));
+        for (int i = last - 1; i > 0; i--) {
+            if (Files.exists(rotated(i))) {
+                Files.move(rotated(i), rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        open();
+    }
+
+    private Path rotated(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+}
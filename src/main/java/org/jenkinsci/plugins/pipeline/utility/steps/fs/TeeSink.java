@@ -0,0 +1,78 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.fs;
+
+import org.jenkinsci.plugins.pipeline.utility.steps.tar.TarCompression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * How {@link TeeStep} writes its file on the agent: compressed, rotated, and with only the lines it should keep.
+ */
+class TeeSink implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Appends everything to the file as it is.
+     */
+    static final TeeSink DEFAULT = new TeeSink(TarCompression.NONE, 0, 0, null, null, 0);
+
+    private final TarCompression compression;
+    private final long maxSize;
+    private final int maxFiles;
+    private final Pattern include;
+    private final Pattern exclude;
+    private final int maxMatches;
+
+    /**
+     * @param compression the compression of the file
+     * @param maxSize the size in bytes at which the file is rotated, 0 to never rotate it
+     * @param maxFiles the number of rotated files to keep, 0 to keep all
+     * @param include the pattern found in the lines to write, or <code>null</code> to write all
+     * @param exclude the pattern found in the lines not to write, or <code>null</code>
+     * @param maxMatches the number of the first lines written to collect, 0 to collect none
+     */
+    TeeSink(TarCompression compression, long maxSize, int maxFiles, Pattern include, Pattern exclude, int maxMatches) {
+        this.compression = compression;
+        this.maxSize = maxSize;
+        this.maxFiles = maxFiles;
+        this.include = include;
+        this.exclude = exclude;
+        this.maxMatches = maxMatches;
+    }
+
+    /**
+     * If the lines written should be collected.
+     *
+     * @return if the maximum number of matches is positive
+     */
+    boolean isCollectingMatches() {
+        return maxMatches > 0;
+    }
+
+    /**
+     * Opens the file for appending.
+     *
+     * @param file the file
+     * @param matches the list to add the first lines written to
+     * @return the stream to the file
+     * @throws IOException if the file could not be opened
+     */
+    OutputStream open(Path file, List<String> matches) throws IOException {
+        OutputStream out;
+        if (compression == TarCompression.NONE && maxSize <= 0) {
+            out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND/*, StandardOpenOption.DSYNC*/);
+        } else {
+            out = new RotatingOutputStream(file, compression, maxSize, maxFiles);
+        }
+        if (include != null || exclude != null || isCollectingMatches()) {
+            out = new LineFilterOutputStream(out, include, exclude, maxMatches, matches);
+        }
+        return out;
+    }
+}
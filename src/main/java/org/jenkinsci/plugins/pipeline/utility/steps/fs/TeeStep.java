@@ -24,26 +24,35 @@
 
 package org.jenkinsci.plugins.pipeline.utility.steps.fs;
 
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.Extension;
 import hudson.FilePath;
+import hudson.Util;
 import hudson.console.ConsoleLogFilter;
 import hudson.model.Run;
 import hudson.remoting.Channel;
 import hudson.remoting.RemoteOutputStream;
 import hudson.remoting.VirtualChannel;
 import java.io.File;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.ObjectInputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
-import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
-import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 import jenkins.MasterToSlaveFileCallable;
+import jenkins.util.SystemProperties;
 import org.apache.commons.io.output.TeeOutputStream;
+import org.jenkinsci.plugins.pipeline.utility.steps.tar.TarCompression;
 import org.jenkinsci.plugins.workflow.steps.BodyExecutionCallback;
 import org.jenkinsci.plugins.workflow.steps.BodyInvoker;
 import org.jenkinsci.plugins.workflow.steps.Step;
@@ -51,19 +60,175 @@ import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
 import org.jenkinsci.plugins.workflow.steps.StepExecution;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 
 public class TeeStep extends Step {
 
+    /**
+     * The number of bytes of output buffered for the file before the body has to wait for it to be written.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Non-final for modification from script console")
+    public static /*almost final*/ int BUFFER_SIZE = SystemProperties.getInteger(TeeStep.class.getName() + ".BUFFER_SIZE", 1024 * 1024);
+    /**
+     * The number of buffered bytes at which they are written to the file right away.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Non-final for modification from script console")
+    public static /*almost final*/ int FLUSH_SIZE = SystemProperties.getInteger(TeeStep.class.getName() + ".FLUSH_SIZE", 64 * 1024);
+    /**
+     * The longest time in milliseconds output stays buffered before it is written to the file.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Non-final for modification from script console")
+    public static /*almost final*/ long FLUSH_INTERVAL = SystemProperties.getLong(TeeStep.class.getName() + ".FLUSH_INTERVAL", 1000L);
+
+    /**
+     * The tee files open on this JVM by the id of their filter,
+     * so that a filter transferred to the agent of the file writes to it without going through the controller.
+     * On an agent they are closed along with its channel, in case the step doesn't get to close them.
+     */
+    private static final Map<String, LocalFile> LOCAL_SINKS = new ConcurrentHashMap<>();
+    /**
+     * The first lines written to the tee files open on this JVM by the id of their filter, until the controller takes them.
+     * On an agent they are dropped along with its channel.
+     */
+    static final Map<String, List<String>> LOCAL_MATCHES = new ConcurrentHashMap<>();
+
     public final String file;
+    private String compression;
+    private long maxSize;
+    private int maxFiles;
+    private String include;
+    private String exclude;
+    private int maxMatches;
 
     @DataBoundConstructor
     public TeeStep(String file) {
         this.file = file;
     }
 
+    /**
+     * The format to compress the file with while writing it, like <code>gzip</code> or <code>zstd</code>.
+     * Any of the formats of the tar step can be used.
+     *
+     * @return the name of the compression format, or <code>null</code> to not compress
+     */
+    public String getCompression() {
+        return compression;
+    }
+
+    /**
+     * The format to compress the file with while writing it, like <code>gzip</code> or <code>zstd</code>.
+     * Any of the formats of the tar step can be used.
+     *
+     * @param compression the name of the compression format, or <code>null</code> to not compress
+     */
+    @DataBoundSetter
+    public void setCompression(String compression) {
+        this.compression = Util.fixEmptyAndTrim(compression);
+    }
+
+    /**
+     * The size in bytes at which the file is rotated to <code>file.1</code> and a new one is started.
+     *
+     * @return the size, 0 to never rotate
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * The size in bytes at which the file is rotated to <code>file.1</code> and a new one is started.
+     *
+     * @param maxSize the size, 0 to never rotate
+     */
+    @DataBoundSetter
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * The number of rotated files to keep, older ones are deleted.
+     *
+     * @return the number of files, 0 to keep all
+     */
+    public int getMaxFiles() {
+        return maxFiles;
+    }
+
+    /**
+     * The number of rotated files to keep, older ones are deleted.
+     *
+     * @param maxFiles the number of files, 0 to keep all
+     */
+    @DataBoundSetter
+    public void setMaxFiles(int maxFiles) {
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * A regular expression the lines must contain to be written to the file.
+     *
+     * @return the regular expression, or <code>null</code> to write all lines
+     */
+    public String getInclude() {
+        return include;
+    }
+
+    /**
+     * A regular expression the lines must contain to be written to the file.
+     *
+     * @param include the regular expression, or <code>null</code> to write all lines
+     */
+    @DataBoundSetter
+    public void setInclude(String include) {
+        this.include = Util.fixEmpty(include);
+    }
+
+    /**
+     * A regular expression of the lines not to write to the file.
+     *
+     * @return the regular expression, or <code>null</code>
+     */
+    public String getExclude() {
+        return exclude;
+    }
+
+    /**
+     * A regular expression of the lines not to write to the file.
+     *
+     * @param exclude the regular expression, or <code>null</code>
+     */
+    @DataBoundSetter
+    public void setExclude(String exclude) {
+        this.exclude = Util.fixEmpty(exclude);
+    }
+
+    /**
+     * The number of the first lines written to the file to return as the result of the step,
+     * instead of the result of the body.
+     *
+     * @return the number of lines, 0 to return the result of the body
+     */
+    public int getMaxMatches() {
+        return maxMatches;
+    }
+
+    /**
+     * The number of the first lines written to the file to return as the result of the step,
+     * instead of the result of the body.
+     *
+     * @param maxMatches the number of lines, 0 to return the result of the body
+     */
+    @DataBoundSetter
+    public void setMaxMatches(int maxMatches) {
+        this.maxMatches = maxMatches;
+    }
+
     @Override
     public StepExecution start(StepContext context) throws Exception {
-        return new Execution(context, file);
+        TeeSink sink = new TeeSink(compression == null ? TarCompression.NONE : TarCompression.fromName(compression),
+                maxSize, maxFiles, include == null ? null : Pattern.compile(include),
+                exclude == null ? null : Pattern.compile(exclude), maxMatches);
+        return new Execution(context, file, sink);
     }
 
     private static final class TeeTail extends BodyExecutionCallback.TailCall {
@@ -82,22 +247,63 @@ public class TeeStep extends Step {
         }
     }
 
+    /**
+     * Like {@link TeeTail}, but completes the step with the first lines written to the file.
+     */
+    private static final class TeeMatchesTail extends BodyExecutionCallback {
+
+        private static final long serialVersionUID = 1L;
+
+        private final TeeFilter filter;
+
+        TeeMatchesTail(TeeFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public void onSuccess(StepContext context, Object result) {
+            List<String> matches;
+            try {
+                filter.close();
+                matches = filter.matches();
+            } catch (Exception x) {
+                context.onFailure(x);
+                return;
+            }
+            context.onSuccess(matches);
+        }
+
+        @Override
+        public void onFailure(StepContext context, Throwable t) {
+            try {
+                filter.close();
+                // Not returned, but taken so that they don't stay behind on the agent
+                filter.matches();
+            } catch (Exception x) {
+                t.addSuppressed(x);
+            }
+            context.onFailure(t);
+        }
+    }
+
     private static class Execution extends StepExecution {
 
         private final String file;
+        private final TeeSink sink;
 
-        Execution(StepContext context, String file) {
+        Execution(StepContext context, String file, TeeSink sink) {
             super(context);
             this.file = file;
+            this.sink = sink;
         }
 
         @Override
         public boolean start() throws Exception {
             FilePath f = getContext().get(FilePath.class).child(file);
-            TeeFilter filter = new TeeFilter(f);
+            TeeFilter filter = new TeeFilter(f, sink);
             getContext().newBodyInvoker().
                 withContext(BodyInvoker.mergeConsoleLogFilters(getContext().get(ConsoleLogFilter.class), filter)).
-                withCallback(new TeeTail(filter)).
+                withCallback(sink.isCollectingMatches() ? new TeeMatchesTail(filter) : new TeeTail(filter)).
                 start();
             return false;
         }
@@ -109,26 +315,61 @@ public class TeeStep extends Step {
     private static class TeeFilter extends ConsoleLogFilter implements Serializable {
 
         private final FilePath f;
+        private String id;
+        private final TeeSink sink;
         private boolean transferredToRemote = false;
         private transient OutputStream stream = null;
-
-        TeeFilter(FilePath f) {
+        /**
+         * Buffers the output written here on its way to the {@link #stream}, so that the body doesn't wait for it.
+         */
+        private transient AsyncBufferedOutputStream buffer = null;
+        /**
+         * If this is the copy transferred to a remote, which writes straight to the stream it got along.
+         */
+        private transient boolean remote = false;
+
+        TeeFilter(FilePath f, TeeSink sink) {
             this.f = f;
+            this.id = UUID.randomUUID().toString();
+            this.sink = sink;
         }
 
         @SuppressWarnings("rawtypes")
         @Override
         public OutputStream decorateLogger(Run build, final OutputStream logger) throws IOException, InterruptedException {
-            return new TeeOutputStream(logger, stream = append(f, stream));
+            stream = open();
+            if (remote) {
+                return new TeeOutputStream(logger, stream);
+            }
+            if (buffer == null) {
+                buffer = new AsyncBufferedOutputStream(stream, BUFFER_SIZE, FLUSH_SIZE, FLUSH_INTERVAL, "tee " + f.getRemote());
+            }
+            return new TeeOutputStream(logger, buffer);
         }
 
         private static final long serialVersionUID = 1;
 
-        void close() throws IOException {
-            if (stream != null) {
+        void close() throws IOException, InterruptedException {
+            boolean written = buffer != null || stream != null;
+            if (buffer != null) {
+                buffer.close();
+                buffer = null;
+                stream = null;
+            } else if (stream != null) {
                 stream.close();
                 stream = null;
             }
+            if (id != null) {
+                // Closing the streams only flushed them, the file stays open on the agent until closed there
+                try {
+                    f.act(new CloseCallable(id));
+                } catch (IOException e) {
+                    if (written) {
+                        throw e;
+                    }
+                    // Resumed without writing since and the agent is gone, the file was closed with it
+                }
+            }
         }
 
         private void writeObject(ObjectOutputStream oos) throws IOException, InterruptedException {
@@ -146,7 +387,15 @@ public class TeeStep extends Step {
             boolean saveStream = transferredToRemote;
             transferredToRemote = false;
             if (saveStream) {
-                oos.writeObject(stream = append(f, stream));
+                if (buffer != null) {
+                    // Keep the output written so far ahead of what the remote writes
+                    buffer.sync();
+                }
+                stream = open();
+                // The writer thread sent the output, remoting only makes the request the filter goes with
+                // wait for the I/O of this thread, so flush from here to have it wait for all of it
+                stream.flush();
+                oos.writeObject(stream);
             }
         }
 
@@ -158,31 +407,177 @@ public class TeeStep extends Step {
             if (saveStream) {
                 // Transferred, so the stream got transferred as well.
                 stream = (OutputStream) ois.readObject();
+                remote = true;
+                // On the agent of the file write to it directly, rather than back through the controller
+                LocalFile local = id != null ? LOCAL_SINKS.get(id) : null;
+                if (local != null) {
+                    stream = new LocalSink(local.out);
+                }
+            }
+            if (id == null) {
+                // Serialized by an older version
+                id = UUID.randomUUID().toString();
             }
         }
 
+        private OutputStream open() throws IOException, InterruptedException {
+            if (stream == null) {
+                // Serialized by an older version if there is no sink
+                return append(f, id, sink == null ? TeeSink.DEFAULT : sink);
+            }
+            return stream;
+        }
+
+        /**
+         * Takes the first lines written to the file from its agent, once it is closed.
+         */
+        List<String> matches() throws IOException, InterruptedException {
+            return f.act(new MatchesCallable(id));
+        }
+
     }
 
-    /** @see FilePath#write() */
-    private static OutputStream append(FilePath fp, OutputStream stream) throws IOException, InterruptedException {
-        if (stream == null) {
-            return fp.act(new MasterToSlaveFileCallable<OutputStream>() {
-                private static final long serialVersionUID = 1L;
-                @Override
-                public OutputStream invoke(File f, VirtualChannel channel) throws IOException, InterruptedException {
-                    f = f.getAbsoluteFile();
-                    if (!f.getParentFile().exists() && !f.getParentFile().mkdirs()) {
-                        throw new IOException("Failed to create directory " + f.getParentFile());
-                    }
-                    try {
-                        return new RemoteOutputStream(Files.newOutputStream(f.toPath(), StandardOpenOption.CREATE, StandardOpenOption.APPEND/*, StandardOpenOption.DSYNC*/));
-                    } catch (InvalidPathException e) {
-                        throw new IOException(e);
+    /**
+     * Opens the file on its agent, where it is registered in {@link #LOCAL_SINKS} until closed.
+     *
+     * @see FilePath#write()
+     */
+    private static OutputStream append(FilePath fp, String id, TeeSink sink) throws IOException, InterruptedException {
+        return fp.act(new MasterToSlaveFileCallable<OutputStream>() {
+            private static final long serialVersionUID = 1L;
+            @Override
+            public OutputStream invoke(File f, VirtualChannel channel) throws IOException, InterruptedException {
+                f = f.getAbsoluteFile();
+                if (!f.getParentFile().exists() && !f.getParentFile().mkdirs()) {
+                    throw new IOException("Failed to create directory " + f.getParentFile());
+                }
+                try {
+                    synchronized (LOCAL_SINKS) {
+                        // Still open when the controller lost its stream to it, like after a restart
+                        LocalFile open = LOCAL_SINKS.get(id);
+                        if (open == null) {
+                            List<String> matches = Collections.synchronizedList(new ArrayList<>());
+                            OutputStream out = sink.open(f.toPath(), matches);
+                            if (sink.isCollectingMatches()) {
+                                LOCAL_MATCHES.put(id, matches);
+                            }
+                            // Turn the many small writes coming over the channel into few writes to the file
+                            open = new LocalFile(id, new AsyncBufferedOutputStream(out, BUFFER_SIZE, FLUSH_SIZE, FLUSH_INTERVAL, "tee " + f), channel);
+                            LOCAL_SINKS.put(id, open);
+                        }
+                        return new RemoteOutputStream(new LocalSink(open.out));
                     }
+                } catch (InvalidPathException e) {
+                    throw new IOException(e);
                 }
-            });
+            }
+        });
+    }
+
+    /**
+     * A file in {@link #LOCAL_SINKS}, which is closed when the channel to the controller is,
+     * like when the agent is disconnected or the controller restarts while the step is running.
+     */
+    private static final class LocalFile extends Channel.Listener {
+        private final String id;
+        final OutputStream out;
+        /**
+         * The channel to the controller, or <code>null</code> on the controller.
+         */
+        private final Channel channel;
+
+        LocalFile(String id, OutputStream out, VirtualChannel channel) {
+            this.id = id;
+            this.out = out;
+            this.channel = channel instanceof Channel ? (Channel) channel : null;
+            if (this.channel != null) {
+                this.channel.addListener(this);
+            }
+        }
+
+        void close() throws IOException {
+            if (channel != null) {
+                channel.removeListener(this);
+            }
+            out.close();
+        }
+
+        @Override
+        public void onClosed(Channel channel, IOException cause) {
+            LOCAL_SINKS.remove(id, this);
+            LOCAL_MATCHES.remove(id);
+            try {
+                close();
+            } catch (IOException e) {
+                // Nobody is left to tell
+            }
+        }
+    }
+
+    /**
+     * The file as written to by one decorated logger, which only flushes it when closed.
+     * Other loggers may still write to the file, it stays in {@link #LOCAL_SINKS} until a {@link CloseCallable} closes it.
+     */
+    private static class LocalSink extends FilterOutputStream {
+        LocalSink(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+
+    /**
+     * Closes the file of the filter with the id if it is still open, and takes it out of {@link #LOCAL_SINKS}.
+     */
+    private static class CloseCallable extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final String id;
+
+        CloseCallable(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public Void invoke(File f, VirtualChannel channel) throws IOException {
+            LocalFile open = LOCAL_SINKS.remove(id);
+            if (open != null) {
+                open.close();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Takes the lines collected by the filter with the id from {@link #LOCAL_MATCHES}.
+     */
+    private static class MatchesCallable extends MasterToSlaveFileCallable<List<String>> {
+        private static final long serialVersionUID = 1L;
+
+        private final String id;
+
+        MatchesCallable(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public List<String> invoke(File f, VirtualChannel channel) {
+            List<String> matches = LOCAL_MATCHES.remove(id);
+            if (matches == null) {
+                return new ArrayList<>();
+            }
+            synchronized (matches) {
+                return new ArrayList<>(matches);
+            }
         }
-        return stream;
     }
 
     @Extension
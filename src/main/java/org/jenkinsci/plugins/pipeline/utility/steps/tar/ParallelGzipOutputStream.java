@@ -0,0 +1,202 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.tar;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A gzip stream that deflates blocks of the input on several threads, the way pigz does.
+ *
+ * Each block is deflated on its own with the last 32k of the previous block as dictionary,
+ * so that matches can still reach back across the block boundary,
+ * and ends with a sync flush so that the blocks can be appended to each other into one deflate stream.
+ * The result is a single standard gzip member, only slightly larger than when deflated on one thread.
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+    static final int BLOCK_SIZE = 128 * 1024;
+    static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final byte[] HEADER = {
+            0x1f, (byte) 0x8b, // magic
+            Deflater.DEFLATED,
+            0, // flags
+            0, 0, 0, 0, // modification time
+            0, // extra flags
+            (byte) 0xff // unknown operating system
+    };
+
+    private final OutputStream out;
+    private final int level;
+    private final int maxPending;
+    private final ExecutorService executor;
+    private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private final CRC32 crc = new CRC32();
+    private long size;
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int blockLength;
+    private byte[] previous;
+    private boolean closed;
+    private final byte[] single = new byte[1];
+
+    /**
+     * @param out the stream to write the gzip data to
+     * @param level the deflate level or <code>null</code> for the default
+     * @param threads the number of threads to deflate with
+     * @throws IOException if writing the gzip header fails
+     */
+    public ParallelGzipOutputStream(OutputStream out, Integer level, int threads) throws IOException {
+        this.out = out;
+        this.level = level == null ? Deflater.DEFAULT_COMPRESSION : level;
+        this.maxPending = threads * 2;
+        // Before there are threads to stop, there is no stream to close if it fails
+        out.write(HEADER);
+        this.executor = Executors.newFixedThreadPool(threads,
+                new NamingThreadFactory(new DaemonThreadFactory(), ParallelGzipOutputStream.class.getSimpleName()));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        single[0] = (byte) b;
+        write(single, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        crc.update(b, off, len);
+        size += len;
+        while (len > 0) {
+            int n = Math.min(len, BLOCK_SIZE - blockLength);
+            System.arraycopy(b, off, block, blockLength, n);
+            blockLength += n;
+            off += n;
+            len -= n;
+            if (blockLength == BLOCK_SIZE) {
+                submit(false);
+            }
+        }
+    }
+
+    /**
+     * Writes the blocks that are done deflating, doesn't wait for the others or flush the current block.
+     */
+    @Override
+    public void flush() throws IOException {
+        while (!pending.isEmpty() && pending.peekFirst().isDone()) {
+            writeFirstPending();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (OutputStream closing = out) {
+            submit(true);
+            while (!pending.isEmpty()) {
+                writeFirstPending();
+            }
+            writeInt((int) crc.getValue());
+            writeInt((int) size);
+        } finally {
+            executor.shutdownNow();
+            endDeflaters();
+        }
+    }
+
+    /**
+     * Ends the deflaters once no block is being deflated with them anymore.
+     */
+    private void endDeflaters() throws InterruptedIOException {
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            // Left to be ended when collected, a block could still be deflating with one
+            throw (InterruptedIOException) new InterruptedIOException("Interrupted while compressing").initCause(e);
+        }
+        for (Deflater deflater : deflaters) {
+            deflater.end();
+        }
+    }
+
+    private void submit(boolean last) throws IOException {
+        while (pending.size() >= maxPending) {
+            writeFirstPending();
+        }
+        byte[] input = block;
+        int length = blockLength;
+        byte[] dictionary = previous;
+        pending.addLast(executor.submit(() -> deflate(input, length, dictionary, last)));
+        previous = input;
+        block = new byte[BLOCK_SIZE];
+        blockLength = 0;
+    }
+
+    private byte[] deflate(byte[] input, int length, byte[] dictionary, boolean last) {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+        }
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary, dictionary.length - DICTIONARY_SIZE, DICTIONARY_SIZE);
+            }
+            deflater.setInput(input, 0, length);
+            ByteArrayOutputStream deflated = new ByteArrayOutputStream(length / 2 + 64);
+            byte[] buffer = new byte[16 * 1024];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    deflated.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                int n;
+                do {
+                    n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    deflated.write(buffer, 0, n);
+                } while (n == buffer.length);
+            }
+            return deflated.toByteArray();
+        } finally {
+            deflater.reset();
+            deflaters.add(deflater);
+        }
+    }
+
+    private void writeFirstPending() throws IOException {
+        try {
+            out.write(pending.removeFirst().get());
+        } catch (InterruptedException e) {
+            throw (InterruptedIOException) new InterruptedIOException("Interrupted while compressing").initCause(e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to compress", e.getCause());
+        }
+    }
+
+    private void writeInt(int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >> 24) & 0xff);
+    }
+}
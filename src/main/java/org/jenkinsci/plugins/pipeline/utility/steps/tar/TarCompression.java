@@ -0,0 +1,251 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.tar;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import jenkins.util.SystemProperties;
+import org.apache.commons.compress.compressors.CompressorException;
+import org.apache.commons.compress.compressors.CompressorStreamFactory;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipParameters;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZInputStream;
+import org.tukaani.xz.XZOutputStream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+
+/**
+ * The compression formats a tar file can be wrapped in.
+ *
+ * The xz and zstd streams are used directly instead of through commons-compress,
+ * because commons-compress is loaded by Jenkins core which can't see the libraries bundled with this plugin.
+ */
+public enum TarCompression {
+    NONE(null) {
+        @Override
+        OutputStream compressor(OutputStream out, Integer level, int threads) {
+            return out;
+        }
+
+        @Override
+        InputStream decompressor(InputStream in) {
+            return in;
+        }
+    },
+    GZIP(CompressorStreamFactory.GZIP) {
+        @Override
+        OutputStream compressor(OutputStream out, Integer level, int threads) throws IOException {
+            if (threads > 1) {
+                return new ParallelGzipOutputStream(out, level, threads);
+            }
+            GzipParameters parameters = new GzipParameters();
+            parameters.setCompressionLevel(level == null ? Deflater.DEFAULT_COMPRESSION : level);
+            return new GzipCompressorOutputStream(out, parameters);
+        }
+
+        @Override
+        InputStream decompressor(InputStream in) throws IOException {
+            return new GzipCompressorInputStream(in);
+        }
+    },
+    BZIP2(CompressorStreamFactory.BZIP2) {
+        @Override
+        OutputStream compressor(OutputStream out, Integer level, int threads) throws IOException {
+            // The block size in units of 100k is what the level means for the bzip2 command line tool
+            return new BZip2CompressorOutputStream(out, level == null ? BZip2CompressorOutputStream.MAX_BLOCKSIZE
+                    : Math.max(BZip2CompressorOutputStream.MIN_BLOCKSIZE, level));
+        }
+
+        @Override
+        InputStream decompressor(InputStream in) throws IOException {
+            return new BZip2CompressorInputStream(in);
+        }
+    },
+    XZ(CompressorStreamFactory.XZ) {
+        @Override
+        OutputStream compressor(OutputStream out, Integer level, int threads) throws IOException {
+            return new XZOutputStream(out, new LZMA2Options(level == null ? LZMA2Options.PRESET_DEFAULT : level));
+        }
+
+        @Override
+        InputStream decompressor(InputStream in) throws IOException {
+            return new XZInputStream(in);
+        }
+    },
+    ZSTD(CompressorStreamFactory.ZSTANDARD) {
+        @Override
+        OutputStream compressor(OutputStream out, Integer level, int threads) throws IOException {
+            ZstdOutputStream zstd = level == null ? new ZstdOutputStream(out) : new ZstdOutputStream(out, level);
+            if (threads > 1) {
+                zstd.setWorkers(threads);
+            }
+            return zstd;
+        }
+
+        @Override
+        InputStream decompressor(InputStream in) throws IOException {
+            return new ZstdInputStream(in);
+        }
+    },
+    LZ4(CompressorStreamFactory.LZ4_FRAMED) {
+        @Override
+        OutputStream compressor(OutputStream out, Integer level, int threads) throws IOException {
+            // lz4 has no levels in commons-compress
+            return new FramedLZ4CompressorOutputStream(out);
+        }
+
+        @Override
+        InputStream decompressor(InputStream in) throws IOException {
+            return new FramedLZ4CompressorInputStream(in);
+        }
+    };
+
+    /**
+     * The size of the buffers between the file, the codec and the tar stream.
+     * Large enough that the native and block based codecs aren't called for every 512 byte tar record.
+     */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The size of the read-ahead buffer when reading a tar file from disk,
+     * large so that a big file is read sequentially in few system calls.
+     */
+    static /*almost final*/ int READ_BUFFER_SIZE = SystemProperties.getInteger(TarCompression.class.getName() + ".READ_BUFFER_SIZE", 1024 * 1024);
+
+    private final String detectedAs;
+
+    TarCompression(String detectedAs) {
+        this.detectedAs = detectedAs;
+    }
+
+    abstract OutputStream compressor(OutputStream out, Integer level, int threads) throws IOException;
+
+    abstract InputStream decompressor(InputStream in) throws IOException;
+
+    /**
+     * Wraps the stream to the tar file in this compression.
+     *
+     * @param out the stream to the file
+     * @param level the compression level or <code>null</code> for the default of the format
+     * @param threads the number of threads to compress with, only gzip and zstd can use more than one
+     * @return the stream to write the tar to
+     * @throws IOException if the compressor could not be created
+     */
+    public OutputStream compress(OutputStream out, Integer level, int threads) throws IOException {
+        if (this == NONE) {
+            return out;
+        }
+        return new BufferedOutputStream(compressor(new BufferedOutputStream(out, BUFFER_SIZE), level, threads), BUFFER_SIZE);
+    }
+
+    /**
+     * The name used for the <code>compression</code> parameter of the tar step.
+     *
+     * @return the lower case name
+     */
+    public String getName() {
+        return name().toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Looks up the compression by the name used for the <code>compression</code> parameter of the tar step.
+     *
+     * @param name the name, case insensitive
+     * @return the compression
+     * @throws IllegalArgumentException if there is no compression with that name
+     */
+    public static TarCompression fromName(String name) {
+        for (TarCompression compression : values()) {
+            if (compression.getName().equalsIgnoreCase(name.trim())) {
+                return compression;
+            }
+        }
+        throw new IllegalArgumentException("Unknown compression " + name + ", should be one of "
+                + Arrays.stream(values()).map(TarCompression::getName).collect(Collectors.joining(", ")));
+    }
+
+    /**
+     * Detects the compression of the stream from its signature and wraps it in a matching decompressor.
+     * Streams that don't look compressed, or that fail to start decompressing, are treated as plain tar.
+     *
+     * @param in the stream of the file
+     * @return the stream of the tar inside
+     * @throws IOException if reading the signature fails
+     */
+    public static InputStream decompress(InputStream in) throws IOException {
+        return decompress(new BufferedInputStream(in, BUFFER_SIZE));
+    }
+
+    /**
+     * Opens the file and wraps it in a matching decompressor, like {@link #decompress(InputStream)}.
+     * The file is read through one buffer of {@link #READ_BUFFER_SIZE} bytes,
+     * that the signature is also detected from, and closed again if the decompressor could not be created.
+     *
+     * @param file the tar file
+     * @return the stream of the tar inside
+     * @throws IOException if the file could not be opened or reading the signature fails
+     */
+    public static InputStream decompress(Path file) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(Files.newInputStream(file), Math.max(READ_BUFFER_SIZE, BUFFER_SIZE));
+        try {
+            return decompress(buffered);
+        } catch (IOException | RuntimeException e) {
+            buffered.close();
+            throw e;
+        }
+    }
+
+    private static InputStream decompress(BufferedInputStream buffered) throws IOException {
+        TarCompression compression = detect(buffered);
+        if (compression == NONE) {
+            return buffered;
+        }
+        buffered.mark(BUFFER_SIZE);
+        try {
+            return new BufferedInputStream(compression.decompressor(buffered), BUFFER_SIZE);
+        } catch (IOException e) {
+            // Only looked like a compressed stream, e.g. a tar where the name of the first entry starts with "BZh"
+            buffered.reset();
+            return buffered;
+        }
+    }
+
+    /**
+     * Detects the compression of the stream from its signature.
+     *
+     * @param in the stream, must support mark
+     * @return the compression, {@link #NONE} if no supported signature was found
+     * @throws IOException if reading the signature fails
+     */
+    public static TarCompression detect(InputStream in) throws IOException {
+        String detected;
+        try {
+            detected = CompressorStreamFactory.detect(in);
+        } catch (CompressorException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            return NONE;
+        }
+        for (TarCompression compression : values()) {
+            if (detected.equals(compression.detectedAs)) {
+                return compression;
+            }
+        }
+        return NONE;
+    }
+}
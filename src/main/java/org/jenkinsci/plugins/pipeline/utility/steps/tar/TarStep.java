@@ -26,6 +26,7 @@ package org.jenkinsci.plugins.pipeline.utility.steps.tar;
 import com.google.common.collect.ImmutableSet;
 import hudson.Extension;
 import hudson.FilePath;
+import hudson.Util;
 import hudson.model.Descriptor;
 import hudson.model.TaskListener;
 import org.apache.commons.lang.StringUtils;
@@ -45,6 +46,8 @@ import java.util.Set;
  */
 public class TarStep extends AbstractFileCompressStep {
     private boolean compress = true;
+    private String compression;
+    private int threads = 1;
 
     @DataBoundConstructor
     public TarStep(String file) throws Descriptor.FormException {
@@ -73,6 +76,52 @@ public class TarStep extends AbstractFileCompressStep {
         this.compress = compress;
     }
 
+    /**
+     * The format to compress the tar file with, one of <code>none</code>, <code>gzip</code>, <code>bzip2</code>,
+     * <code>xz</code>, <code>zstd</code> or <code>lz4</code>.
+     * When set it takes precedence over {@link #isCompress()}.
+     *
+     * @return the name of the compression format
+     */
+    public String getCompression() {
+        return compression;
+    }
+
+    /**
+     * The format to compress the tar file with, one of <code>none</code>, <code>gzip</code>, <code>bzip2</code>,
+     * <code>xz</code>, <code>zstd</code> or <code>lz4</code>.
+     * When set it takes precedence over {@link #isCompress()}.
+     *
+     * @param compression the name of the compression format
+     */
+    @DataBoundSetter
+    public void setCompression(String compression) {
+        this.compression = Util.fixEmptyAndTrim(compression);
+    }
+
+    /**
+     * The number of threads to compress the tar file with.
+     * For gzip the tar is split into blocks that are deflated concurrently, zstd uses its own worker threads.
+     * The other formats always compress on a single thread.
+     *
+     * @return the number of threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * The number of threads to compress the tar file with.
+     * For gzip the tar is split into blocks that are deflated concurrently, zstd uses its own worker threads.
+     * The other formats always compress on a single thread.
+     *
+     * @param threads the number of threads
+     */
+    @DataBoundSetter
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
 
     @Override
     public StepExecution start(StepContext context) throws Exception {
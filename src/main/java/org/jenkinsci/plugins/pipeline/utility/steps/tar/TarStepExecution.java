@@ -59,7 +59,14 @@ public class TarStepExecution extends CompressStepExecution {
 
     @Override
     protected Void run() throws Exception {
-        setCallable(new TarItFileCallable(step.getGlob(), step.getExclude(), step.isCompress(), step.isOverwrite(), step.isDefaultExcludes()));
+        TarCompression compression;
+        if (step.getCompression() != null) {
+            compression = TarCompression.fromName(step.getCompression());
+        } else {
+            compression = step.isCompress() ? TarCompression.GZIP : TarCompression.NONE;
+        }
+        setCallable(new TarItFileCallable(step.getGlob(), step.getExclude(), compression, step.isOverwrite(), step.isDefaultExcludes(),
+                step.getLevel(), step.getThreads()));
         return super.run();
     }
 
@@ -69,16 +76,21 @@ public class TarStepExecution extends CompressStepExecution {
     static class TarItFileCallable extends AbstractFileCallable<Integer> {
         final String glob;
         final String exclude;
-        final boolean compress;
+        final TarCompression compression;
         final boolean overwrite;
 
         final boolean defaultExcludes;
-        public TarItFileCallable(String glob, String exclude, boolean compress, boolean overwrite, boolean defaultExcludes) {
+        final Integer level;
+        final int threads;
+        public TarItFileCallable(String glob, String exclude, TarCompression compression, boolean overwrite, boolean defaultExcludes,
+                                 Integer level, int threads) {
             this.glob = StringUtils.isBlank(glob) ? "**/*" : glob;
             this.exclude = exclude;
-            this.compress = compress;
+            this.compression = compression;
             this.overwrite = overwrite;
             this.defaultExcludes =  defaultExcludes;
+            this.level = level;
+            this.threads = threads;
         }
 
         @Override
@@ -88,7 +100,7 @@ public class TarStepExecution extends CompressStepExecution {
                 Files.delete(p); //Will throw exception if it fails to delete it
             }
 
-            Archiver archiver = (compress ? ArchiverFactory.TARGZ : ArchiverFactory.TAR).create(getDestination().write());
+            Archiver archiver = ArchiverFactory.TAR.create(compression.compress(getDestination().write(), level, threads));
             FileSet fileSet = Util.createFileSet(dir, glob, exclude);
             fileSet.setDefaultexcludes(defaultExcludes);
             DirectoryScanner scanner = fileSet.getDirectoryScanner(new org.apache.tools.ant.Project());
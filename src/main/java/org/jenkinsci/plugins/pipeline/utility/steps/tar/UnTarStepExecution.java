@@ -30,22 +30,20 @@ import hudson.model.TaskListener;
 import hudson.remoting.VirtualChannel;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
-import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.tools.ant.types.selectors.SelectorUtils;
 import org.jenkinsci.plugins.pipeline.utility.steps.AbstractFileCallable;
 import org.jenkinsci.plugins.pipeline.utility.steps.DecompressStepExecution;
+import org.jenkinsci.plugins.pipeline.utility.steps.LocalFileWriter;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
-import java.nio.channels.FileChannel;
+import java.nio.file.Path;
 
 /**
  * The execution of a {@link UnTarStep}.
@@ -96,36 +94,15 @@ public class UnTarStepExecution extends DecompressStepExecution {
             PrintStream logger = listener.getLogger();
             boolean doGlob = !StringUtils.isBlank(glob);
 
-            FileInputStream fileStream = new FileInputStream(tarFile);
-
-            FileChannel fileChannel = fileStream.getChannel();
-
-            byte[] signature = new byte[2];
-            try {
-                int read = fileStream.read(signature);
-                fileChannel.position(0);
-                if (read <= 0) {
-                    logger.println("File is empty.");
-                }
-            } catch (IOException exception) {
-                fileStream.close();
-                throw new IOException("Error reading tar/tgz file: " + exception.getMessage(), exception);
-            } finally {
-                logger.flush();
+            if (tarFile.length() == 0) {
+                logger.println("File is empty.");
             }
 
-            InputStream inputStream = fileStream;
-            if(GzipCompressorInputStream.matches(signature, signature.length)) {
-                try {
-                    //check if matches standard gzip magic number
-                    inputStream = new GzipCompressorInputStream(fileStream);
-                } catch (IOException exception) {
-                    // Eat exception, may be not compressed file
-                }
-            }
-
-            getDestination().mkdirs();
-            try (TarArchiveInputStream tarStream = new TarArchiveInputStream(inputStream)) {
+            Path destination = getLocalDestination();
+            LocalFileWriter writer = new LocalFileWriter();
+            writer.mkdirs(destination);
+            try (InputStream inputStream = TarCompression.decompress(tarFile.toPath());
+                 TarArchiveInputStream tarStream = new TarArchiveInputStream(inputStream)) {
                 logger.println("Extracting from " + tarFile.getAbsolutePath());
                 TarArchiveEntry entry;
                 Integer fileCount = 0;
@@ -134,28 +111,26 @@ public class UnTarStepExecution extends DecompressStepExecution {
                         continue;
                     }
 
-                    FilePath f = getDestination().child(entry.getName());
-                    if (!isDescendantOfDestination(f)) {
-                        throw new FileNotFoundException(f.getRemote() + " is out of bounds!");
+                    Path f = destination.resolve(entry.getName());
+                    if (!isDescendantOfDestination(f.toFile())) {
+                        throw new FileNotFoundException(f + " is out of bounds!");
                     }
                     if (entry.isDirectory()) {
-                        f.mkdirs();
+                        writer.mkdirs(f);
                     } else {
                         fileCount++;
                         if (!quiet) {
-                            logger.printf("Extracting: %s -> %s%n", entry.getName(), f.getRemote());
+                            logger.printf("Extracting: %s -> %s%n", entry.getName(), f);
                         }
 
                         if (entry.isCheckSumOK()) {
-                            OutputStream outputStream = f.write();
-                            IOUtils.copy(tarStream, outputStream);
-                            outputStream.close();
+                            writer.write(tarStream, f);
                         } else {
                             throw new IOException("Not a tar archive");
                         }
                     }
                     if (keepPermissions) {
-                        f.chmod(entry.getMode());
+                        new FilePath(f.toFile()).chmod(entry.getMode());
                     }
                 }
                 logger.printf("Extracted: %d files%n", fileCount);
@@ -183,60 +158,34 @@ public class UnTarStepExecution extends DecompressStepExecution {
             this.listener = listener;
         }
 
+        /**
+         * Walks the tar headers in one pass over the decompressed stream, checking the header checksums
+         * and that every entry stays inside the destination.
+         * The stream is then read to the end so that the decompressor verifies the checksum of the whole content,
+         * like the gzip CRC, which entries that are skipped over are included in.
+         */
         @Override
         public Boolean invoke(File f, VirtualChannel channel) throws IOException, InterruptedException {
             PrintStream logger = listener.getLogger();
-
-            FileInputStream fileStream = new FileInputStream(f);
-            FileChannel fileChannel = fileStream.getChannel();
             logger.printf("Checking %d bytes in %s%n", f.length(), f.getAbsolutePath());
 
-            byte[] signature = new byte[2];
-            try {
-                fileStream.read(signature);
-                fileChannel.position(0);
-            } catch (IOException exception) {
-                fileStream.close();
-                listener.error("Error validating tar/tgz file: " + exception.getMessage());
-                return false;
-            } finally {
-                logger.flush();
-            }
-
-            InputStream inputStream = fileStream;
-            if(GzipCompressorInputStream.matches(signature, signature.length)) {
-                try {
-                    inputStream = new GzipCompressorInputStream(inputStream);
-                    int nRead = -1;
-                    do {
-                        byte[] buffer = new byte[4096];
-                        nRead = inputStream.read(buffer);
-                    } while (nRead >= 0);
-                    fileChannel.position(0);
-                } catch (IOException exception) {
-                    inputStream.close();
-                    listener.error("Error validating tgz file: " + exception.getMessage());
-                    return false;
-                } finally {
-                    logger.flush();
-                }
-            }
-
-            try (TarArchiveInputStream tarStream = new TarArchiveInputStream(inputStream)) {
+            Path destination = getDestination() == null ? null : getLocalDestination();
+            try (InputStream inputStream = TarCompression.decompress(f.toPath());
+                 TarArchiveInputStream tarStream = new TarArchiveInputStream(inputStream)) {
                 TarArchiveEntry entry;
                 while ((entry = tarStream.getNextTarEntry()) != null) {
                     if (!entry.isCheckSumOK()) {
                         throw new IOException("Not a tar archive");
                     }
-                    FilePath destination = getDestination();
                     if (destination != null) {
-                        FilePath ef = destination.child(entry.getName());
-                        if (!isDescendantOfDestination(ef)) {
-                            listener.error(ef.getRemote() + " is out of bounds!");
+                        Path ef = destination.resolve(entry.getName());
+                        if (!isDescendantOfDestination(ef.toFile())) {
+                            listener.error(ef + " is out of bounds!");
                             return false;
                         }
                     }
                 }
+                inputStream.transferTo(OutputStream.nullOutputStream());
             } catch (IOException exception) {
                 listener.error("Error validating tar file: " + exception.getMessage());
                 return false;
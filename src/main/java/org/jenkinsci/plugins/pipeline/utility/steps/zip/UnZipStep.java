@@ -50,6 +50,7 @@ public class UnZipStep extends AbstractFileDecompressStep {
 
     private String charset;
     private boolean read = false;
+    private int parallelism = 1;
 
     @DataBoundConstructor
     public UnZipStep(String zipFile) throws Descriptor.FormException {
@@ -117,6 +118,29 @@ public class UnZipStep extends AbstractFileDecompressStep {
        this.charset = (charset.trim().isEmpty()) ? "UTF-8" : charset;
     }
 
+    /**
+     * The number of threads to extract the files with.
+     * When greater than 1 the files are split into ranges that are inflated concurrently.
+     * Has no effect when {@link #isRead()} is set.
+     *
+     * @return the number of threads
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * The number of threads to extract the files with.
+     * When greater than 1 the files are split into ranges that are inflated concurrently.
+     * Has no effect when {@link #isRead()} is set.
+     *
+     * @param parallelism the number of threads
+     */
+    @DataBoundSetter
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
     @Override
     public StepExecution start(StepContext context) throws Exception {
         return new UnZipStepExecution(this, context);
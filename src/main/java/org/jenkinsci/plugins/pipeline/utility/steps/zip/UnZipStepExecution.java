@@ -33,20 +33,30 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.tools.ant.types.selectors.SelectorUtils;
 import org.jenkinsci.plugins.pipeline.utility.steps.AbstractFileCallable;
 import org.jenkinsci.plugins.pipeline.utility.steps.DecompressStepExecution;
+import org.jenkinsci.plugins.pipeline.utility.steps.LocalFileWriter;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.PrintStream;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.CRC32;
-import java.util.zip.Checksum;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
@@ -72,9 +82,10 @@ public class UnZipStepExecution extends DecompressStepExecution {
         assert listener != null;
 
         if (step.isTest()) {
-            setCallable(new TestZipFileCallable(listener));
+            setCallable(new TestZipFileCallable(listener, step.getParallelism(), step.isQuiet()));
         } else {
-            setCallable(new UnZipFileCallable(listener, step.getGlob(), step.isRead(),step.getCharset(),step.isQuiet()));
+            setCallable(new UnZipFileCallable(listener, step.getGlob(), step.isRead(),step.getCharset(),step.isQuiet(),
+                    step.getParallelism()));
         }
         return super.run();
     }
@@ -88,25 +99,37 @@ public class UnZipStepExecution extends DecompressStepExecution {
         private final boolean read;
         private final boolean quiet;
         private final String charset;
+        private final int parallelism;
 
         public UnZipFileCallable(TaskListener listener, String glob, boolean read, String charset, boolean quiet) {
+            this(listener, glob, read, charset, quiet, 1);
+        }
+
+        public UnZipFileCallable(TaskListener listener, String glob, boolean read, String charset, boolean quiet, int parallelism) {
             this.listener = listener;
             this.glob = glob;
             this.read = read;
             this.charset = charset;
             this.quiet = quiet;
+            this.parallelism = parallelism;
         }
 
         @Override
         public Map<String, String> invoke(File zipFile, VirtualChannel channel) throws IOException, InterruptedException {
+            Path destination = getLocalDestination();
+            LocalFileWriter writer = new LocalFileWriter();
             if (!read) {
-                getDestination().mkdirs();
+                writer.mkdirs(destination);
             }
             PrintStream logger = listener.getLogger();
             boolean doGlob = !StringUtils.isBlank(glob);
             Map<String, String> strMap = new TreeMap<>();
             try (ZipFile zip = new ZipFile(zipFile, Charset.forName(charset))) {
                 logger.println("Extracting from " + zipFile.getAbsolutePath());
+                if (!read && parallelism > 1) {
+                    logger.printf("Extracted: %d files%n", extractInParallel(zipFile, zip, logger));
+                    return null;
+                }
                 Enumeration<? extends ZipEntry> entries = zip.entries();
                 Integer fileCount = 0;
                 while (entries.hasMoreElements()) {
@@ -114,20 +137,20 @@ public class UnZipStepExecution extends DecompressStepExecution {
                     if (doGlob && !matches(entry.getName(), glob)) {
                         continue;
                     }
-                    FilePath f = getDestination().child(entry.getName());
-                    if (!isDescendantOfDestination(f)) {
-                        throw new FileNotFoundException(f.getRemote() + " is out of bounds!");
+                    Path f = destination.resolve(entry.getName());
+                    if (!isDescendantOfDestination(f.toFile())) {
+                        throw new FileNotFoundException(f + " is out of bounds!");
                     }
                     if (entry.isDirectory()) {
                         if (!read) {
-                            f.mkdirs();
+                            writer.mkdirs(f);
                         }
                     } else {
                         fileCount++;
 
                         if (!read) {
                             if (!quiet) {
-                                logger.printf("Extracting: %s -> %s%n", entry.getName(), f.getRemote());
+                                logger.printf("Extracting: %s -> %s%n", entry.getName(), f);
                             }
 
                             /*
@@ -135,10 +158,8 @@ public class UnZipStepExecution extends DecompressStepExecution {
                             closed once the zip file is closed. How ever doing so allows the zip class to reuse the
                             Inflater instance that is used.
                              */
-                            try (InputStream inputStream = zip.getInputStream(entry);
-                                 OutputStream outputStream = f.write()) {
-                                IOUtils.copy(inputStream, outputStream);
-                                outputStream.flush();
+                            try (InputStream inputStream = zip.getInputStream(entry)) {
+                                writer.write(inputStream, f);
                             }
                         } else {
                             if (!quiet) {
@@ -163,6 +184,99 @@ public class UnZipStepExecution extends DecompressStepExecution {
             }
         }
 
+        /**
+         * Creates the directories and checks that every entry stays inside the destination up front,
+         * then splits the files into contiguous ranges of the central directory of about equal compressed size.
+         * Each range is inflated by its own worker reading through its own {@link ZipFile}.
+         *
+         * @return the number of extracted files
+         */
+        private int extractInParallel(File zipFile, ZipFile zip, PrintStream logger) throws IOException, InterruptedException {
+            boolean doGlob = !StringUtils.isBlank(glob);
+            Path destination = getLocalDestination();
+            Set<Path> createdDirectories = ConcurrentHashMap.newKeySet();
+            LocalFileWriter writer = new LocalFileWriter(createdDirectories);
+            // By destination, so that entries with the same name aren't written concurrently.
+            // The last one wins, like when extracting one after the other.
+            Map<Path, ZipEntry> byDestination = new LinkedHashMap<>();
+            int count = 0;
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (doGlob && !matches(entry.getName(), glob)) {
+                    continue;
+                }
+                Path f = destination.resolve(entry.getName());
+                if (!isDescendantOfDestination(f.toFile())) {
+                    throw new FileNotFoundException(f + " is out of bounds!");
+                }
+                if (entry.isDirectory()) {
+                    writer.mkdirs(f);
+                } else {
+                    if (!quiet) {
+                        logger.printf("Extracting: %s -> %s%n", entry.getName(), f);
+                    }
+                    byDestination.remove(f);
+                    byDestination.put(f, entry);
+                    count++;
+                }
+            }
+            if (byDestination.isEmpty()) {
+                return 0;
+            }
+            List<ZipEntry> files = new ArrayList<>(byDestination.values());
+            long totalSize = 0;
+            for (ZipEntry entry : files) {
+                totalSize += Math.max(entry.getCompressedSize(), 0);
+            }
+
+            List<List<ZipEntry>> ranges = partition(files, totalSize, parallelism);
+            ExecutorService executor = Executors.newFixedThreadPool(ranges.size());
+            try {
+                List<Future<WorkerStatistics>> futures = new ArrayList<>();
+                for (List<ZipEntry> r : ranges) {
+                    futures.add(executor.submit(() -> extractRange(zipFile, r, destination, new LocalFileWriter(createdDirectories))));
+                }
+                for (int i = 0; i < futures.size(); i++) {
+                    WorkerStatistics statistics = futures.get(i).get();
+                    if (!quiet) {
+                        statistics.log(logger, "Worker " + (i + 1));
+                    }
+                }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof InterruptedException) {
+                    throw (InterruptedException) cause;
+                }
+                throw new IOException("Failed to extract " + zipFile.getAbsolutePath(), cause);
+            } finally {
+                executor.shutdownNow();
+            }
+            return count;
+        }
+
+        private WorkerStatistics extractRange(File zipFile, List<ZipEntry> entries, Path destination, LocalFileWriter writer)
+                throws IOException, InterruptedException {
+            WorkerStatistics statistics = new WorkerStatistics();
+            long start = System.nanoTime();
+            try (ZipFile zip = new ZipFile(zipFile, Charset.forName(charset))) {
+                for (ZipEntry entry : entries) {
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                    try (InputStream inputStream = zip.getInputStream(entry)) {
+                        statistics.bytes += writer.write(inputStream, destination.resolve(entry.getName()));
+                    }
+                    statistics.files++;
+                }
+            }
+            statistics.nanos = System.nanoTime() - start;
+            return statistics;
+        }
+
         boolean matches(String path, String glob) {
             String safeGlob = glob.replace('/', File.separatorChar);
             String safePath = path.replace('/', File.separatorChar);
@@ -170,29 +284,81 @@ public class UnZipStepExecution extends DecompressStepExecution {
         }
     }
 
+    /**
+     * Splits the files into at most <code>workers</code> contiguous ranges of the central directory
+     * of about equal compressed size, so that each worker reads through a part of the zip file in order.
+     */
+    private static List<List<ZipEntry>> partition(List<ZipEntry> files, long totalSize, int workers) {
+        workers = Math.min(workers, files.size());
+        long target = totalSize / workers + 1;
+        List<List<ZipEntry>> ranges = new ArrayList<>();
+        List<ZipEntry> range = new ArrayList<>();
+        long rangeSize = 0;
+        for (ZipEntry entry : files) {
+            range.add(entry);
+            rangeSize += Math.max(entry.getCompressedSize(), 0);
+            if (rangeSize >= target && ranges.size() < workers - 1) {
+                ranges.add(range);
+                range = new ArrayList<>();
+                rangeSize = 0;
+            }
+        }
+        if (!range.isEmpty()) {
+            ranges.add(range);
+        }
+        return ranges;
+    }
+
+    private static final class WorkerStatistics {
+        int files;
+        long bytes;
+        long nanos;
+        /**
+         * The name of the entry that failed the test, if any.
+         */
+        String failed;
+
+        void log(PrintStream logger, String worker) {
+            logger.printf("%s: %d files, %d bytes in %d ms (%.1f MB/s)%n", worker, files, bytes, nanos / 1_000_000,
+                    nanos == 0 ? 0.0 : bytes * 1000.0 / nanos);
+        }
+    }
+
     /**
      * Performs a test of a zip file on the slave where the file is.
      */
     static class TestZipFileCallable extends AbstractFileCallable<Boolean> {
+        private static final int BUFFER_SIZE = 64 * 1024;
+
         private TaskListener listener;
+        private final int parallelism;
+        private final boolean quiet;
 
         public TestZipFileCallable(TaskListener listener) {
+            this(listener, 1, false);
+        }
+
+        public TestZipFileCallable(TaskListener listener, int parallelism, boolean quiet) {
             this.listener = listener;
+            this.parallelism = parallelism;
+            this.quiet = quiet;
         }
 
+        /**
+         * Checks that every entry stays inside the destination up front, then inflates the files and compares their CRC,
+         * split into ranges of the central directory that are checked concurrently when {@link #parallelism} is more than one.
+         * The first checksum error stops the other workers.
+         */
         @Override
         public Boolean invoke(File f, VirtualChannel channel) throws IOException, InterruptedException {
             PrintStream logger = listener.getLogger();
             try (ZipFile zip = new ZipFile(f)) {
                 logger.printf("Checking %d zipped entries in %s%n", zip.size(), f.getAbsolutePath());
 
-                Checksum checksum = new CRC32();
-                byte[] buffer = new byte[4096];
-
+                List<ZipEntry> files = new ArrayList<>();
+                long totalSize = 0;
                 Enumeration<? extends ZipEntry> entries = zip.entries();
                 while (entries.hasMoreElements()) {
-                    checksum.reset();
-
                     ZipEntry entry = entries.nextElement();
                     if (!entry.isDirectory()) {
                         FilePath destination = getDestination();
@@ -203,18 +369,28 @@ public class UnZipStepExecution extends DecompressStepExecution {
                                 return false;
                             }
                         }
-                        try (InputStream inputStream = zip.getInputStream(entry)) {
-                            int length;
-                            while ((length = IOUtils.read(inputStream, buffer)) > 0) {
-                                checksum.update(buffer, 0, length);
-                            }
-                            if (checksum.getValue() != entry.getCrc()) {
-                                listener.error("Checksum error in : " + f.getAbsolutePath() + ":" + entry.getName());
-                                return false;
-                            }
-                        }
+                        files.add(entry);
+                        totalSize += Math.max(entry.getCompressedSize(), 0);
                     }
                 }
+                if (files.isEmpty()) {
+                    return true;
+                }
+
+                AtomicBoolean failed = new AtomicBoolean();
+                WorkerStatistics total;
+                if (parallelism > 1) {
+                    total = verifyInParallel(f, files, totalSize, failed);
+                } else {
+                    total = verifyRange(zip, files, failed);
+                }
+                if (total.failed != null) {
+                    listener.error("Checksum error in : " + f.getAbsolutePath() + ":" + total.failed);
+                    return false;
+                }
+                if (!quiet) {
+                    total.log(logger, "Verified");
+                }
                 return true;
             } catch (ZipException e) {
                 listener.error("Error validating zip file: " + e.getMessage());
@@ -223,5 +399,86 @@ public class UnZipStepExecution extends DecompressStepExecution {
                 logger.flush();
             }
         }
+
+        private WorkerStatistics verifyInParallel(File f, List<ZipEntry> files, long totalSize, AtomicBoolean failed)
+                throws IOException, InterruptedException {
+            List<List<ZipEntry>> ranges = partition(files, totalSize, parallelism);
+            ExecutorService executor = Executors.newFixedThreadPool(ranges.size());
+            long start = System.nanoTime();
+            try {
+                List<Future<WorkerStatistics>> futures = new ArrayList<>();
+                for (List<ZipEntry> r : ranges) {
+                    futures.add(executor.submit(() -> {
+                        try (ZipFile zip = new ZipFile(f)) {
+                            return verifyRange(zip, r, failed);
+                        }
+                    }));
+                }
+                WorkerStatistics total = new WorkerStatistics();
+                for (Future<WorkerStatistics> future : futures) {
+                    WorkerStatistics statistics = future.get();
+                    total.files += statistics.files;
+                    total.bytes += statistics.bytes;
+                    if (total.failed == null) {
+                        total.failed = statistics.failed;
+                    }
+                }
+                total.nanos = System.nanoTime() - start;
+                return total;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof InterruptedException) {
+                    throw (InterruptedException) cause;
+                }
+                throw new IOException("Failed to test " + f.getAbsolutePath(), cause);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        /**
+         * Inflates the entries and compares their CRC, until the end of the range or until a worker has found an error
+         * or failed to read an entry.
+         */
+        private static WorkerStatistics verifyRange(ZipFile zip, List<ZipEntry> entries, AtomicBoolean failed)
+                throws IOException, InterruptedException {
+            WorkerStatistics statistics = new WorkerStatistics();
+            long start = System.nanoTime();
+            CRC32 checksum = new CRC32();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try {
+                for (ZipEntry entry : entries) {
+                    if (failed.get()) {
+                        break;
+                    }
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                    checksum.reset();
+                    try (InputStream inputStream = zip.getInputStream(entry)) {
+                        int length;
+                        while ((length = inputStream.read(buffer)) != -1) {
+                            checksum.update(buffer, 0, length);
+                            statistics.bytes += length;
+                        }
+                    }
+                    if (checksum.getValue() != entry.getCrc()) {
+                        statistics.failed = entry.getName();
+                        failed.set(true);
+                        break;
+                    }
+                    statistics.files++;
+                }
+            } catch (IOException | RuntimeException e) {
+                // A broken entry stops the other workers just like a checksum error
+                failed.set(true);
+                throw e;
+            }
+            statistics.nanos = System.nanoTime() - start;
+            return statistics;
+        }
     }
 }
@@ -34,6 +34,7 @@ import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
 import org.jenkinsci.plugins.workflow.steps.StepExecution;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 
 import java.util.Set;
 
@@ -43,6 +44,9 @@ import java.util.Set;
  * @author Robert Sandell &lt;rsandell@cloudbees.com&gt;.
  */
 public class ZipStep extends AbstractFileCompressStep {
+    private int parallelism = 1;
+    private boolean storeIncompressible = false;
+    private boolean update = false;
 
     @DataBoundConstructor
     public ZipStep(String zipFile) throws Descriptor.FormException {
@@ -61,6 +65,71 @@ public class ZipStep extends AbstractFileCompressStep {
         return getFile();
     }
 
+    /**
+     * The number of threads to compress the entries with.
+     * When greater than 1 the entries are deflated concurrently and then assembled into the zip file.
+     *
+     * @return the number of threads
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * The number of threads to compress the entries with.
+     * When greater than 1 the entries are deflated concurrently and then assembled into the zip file.
+     *
+     * @param parallelism the number of threads
+     */
+    @DataBoundSetter
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Store files that would not gain anything from being deflated, like other archives or images, without compression.
+     * A file is considered incompressible if it has a well known extension of a compressed format,
+     * or if a sample from the beginning of the file does not shrink when deflated.
+     *
+     * @return if incompressible files should be stored
+     */
+    public boolean isStoreIncompressible() {
+        return storeIncompressible;
+    }
+
+    /**
+     * Store files that would not gain anything from being deflated, like other archives or images, without compression.
+     * A file is considered incompressible if it has a well known extension of a compressed format,
+     * or if a sample from the beginning of the file does not shrink when deflated.
+     *
+     * @param storeIncompressible if incompressible files should be stored
+     */
+    @DataBoundSetter
+    public void setStoreIncompressible(boolean storeIncompressible) {
+        this.storeIncompressible = storeIncompressible;
+    }
+
+    /**
+     * If an existing zip file should be updated to contain the selected files,
+     * reusing the compressed entries of the files that haven't changed.
+     *
+     * @return true if so.
+     */
+    public boolean isUpdate() {
+        return update;
+    }
+
+    /**
+     * If an existing zip file should be updated to contain the selected files,
+     * reusing the compressed entries of the files that haven't changed.
+     *
+     * @param update if an existing zip file should be updated
+     */
+    @DataBoundSetter
+    public void setUpdate(boolean update) {
+        this.update = update;
+    }
+
     @Override
     public StepExecution start(StepContext context) throws Exception {
         return new ZipStepExecution(this, context);
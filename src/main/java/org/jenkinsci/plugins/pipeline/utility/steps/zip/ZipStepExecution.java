@@ -27,9 +27,17 @@ package org.jenkinsci.plugins.pipeline.utility.steps.zip;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.FilePath;
 import hudson.Util;
+import hudson.model.TaskListener;
 import hudson.remoting.VirtualChannel;
-import hudson.util.io.Archiver;
-import hudson.util.io.ArchiverFactory;
+import hudson.util.IOUtils;
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
+import org.apache.commons.compress.archivers.zip.X000A_NTFS;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipExtraField;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.parallel.FileBasedScatterGatherBackingStore;
+import org.apache.commons.compress.parallel.ScatterGatherBackingStore;
 import org.apache.commons.lang.StringUtils;
 import org.apache.tools.ant.DirectoryScanner;
 import org.apache.tools.ant.types.FileSet;
@@ -39,9 +47,28 @@ import org.jenkinsci.plugins.workflow.steps.StepContext;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
 
 /**
  * Execution of {@link ZipStep}.
@@ -60,10 +87,19 @@ public class ZipStepExecution extends CompressStepExecution {
 
     @Override
     protected Void run() throws Exception {
-        setCallable(new ZipItFileCallable(step.getGlob(), step.getExclude(), step.isOverwrite(), step.isDefaultExcludes()));
+        TaskListener listener = getContext().get(TaskListener.class);
+        assert listener != null;
+
+        setCallable(new ZipItFileCallable(listener, step.getGlob(), step.getExclude(), step.isOverwrite(), step.isDefaultExcludes(),
+                step.getParallelism(), step.getLevel(), step.isStoreIncompressible(), step.isUpdate()));
         return super.run();
     }
 
+    @Override
+    protected boolean isExistingDestinationAllowed() {
+        return super.isExistingDestinationAllowed() || step.isUpdate();
+    }
+
     /**
      * Performs the actual zip operation on the slave where the source dir is located.
      *
@@ -71,41 +107,286 @@ public class ZipStepExecution extends CompressStepExecution {
      * will include the source dir as a base path in the zip file while this implementation doesn't.
      */
     static class ZipItFileCallable extends AbstractFileCallable<Integer> {
+        /**
+         * Extensions of file formats that are already compressed.
+         */
+        static final Set<String> INCOMPRESSIBLE_EXTENSIONS = new HashSet<>(Arrays.asList(
+                "7z", "apk", "avi", "bz2", "ear", "gif", "gz", "jar", "jpeg", "jpg", "lz4", "mkv", "mov", "mp3", "mp4",
+                "nupkg", "ogg", "png", "rar", "tbz2", "tgz", "txz", "war", "webm", "webp", "whl", "xz", "zip", "zst"));
+        /**
+         * How much of the beginning of a file to test deflate when checking if it is compressible.
+         */
+        static final int SAMPLE_SIZE = 64 * 1024;
+
         final String glob;
         final String exclude;
         final boolean overwrite;
 
         final boolean defaultExcludes;
+        final int parallelism;
+        final Integer level;
+        final boolean storeIncompressible;
+        final boolean update;
+        final TaskListener listener;
 
-        public ZipItFileCallable(String glob, String exclude, boolean overwrite, boolean defaultExcludes) {
+        public ZipItFileCallable(TaskListener listener, String glob, String exclude, boolean overwrite, boolean defaultExcludes,
+                                 int parallelism, Integer level, boolean storeIncompressible, boolean update) {
+            this.listener = listener;
             this.glob = StringUtils.isBlank(glob) ? "**/*" : glob;
             this.exclude = exclude;
             this.overwrite = overwrite;
             this.defaultExcludes =  defaultExcludes;
+            this.parallelism = parallelism;
+            this.level = level;
+            this.storeIncompressible = storeIncompressible;
+            this.update = update;
         }
 
         @Override
         public Integer invoke(File dir, VirtualChannel channel) throws IOException, InterruptedException {
             Path p = Paths.get(getDestination().getRemote());
+            if (update && Files.exists(p)) {
+                return update(dir, p);
+            }
             if (overwrite && Files.exists(p)) {
                 Files.delete(p); //Will throw exception if it fails to delete it
             }
+            try (ZipArchiveOutputStream zip = open(p)) {
+                return addEntries(zip, dir, scan(dir), p, null);
+            }
+        }
+
+        /**
+         * Writes a new zip file next to the existing one, with the entries of files that haven't changed copied over
+         * without inflating and deflating them again, and then moves it in place of the existing one.
+         */
+        private int update(File dir, Path destination) throws IOException, InterruptedException {
+            String[] paths = scan(dir);
+            Path tmp = Files.createTempFile(destination.getParent(), destination.getFileName().toString(), ".tmp");
+            try {
+                int count;
+                try (ZipFile previous = new ZipFile(destination.toFile());
+                     ZipArchiveOutputStream zip = open(tmp)) {
+                    count = addEntries(zip, dir, paths, destination, previous);
+                }
+                try {
+                    Files.move(tmp, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, destination, StandardCopyOption.REPLACE_EXISTING);
+                }
+                return count;
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+
+        /**
+         * Adds the files to the zip, deflating them concurrently when {@link #parallelism} is more than one.
+         * In that case the entries are deflated into temporary scatter files next to the destination,
+         * and then copied raw into the zip file, grouped per compressing thread rather than in the order they were scanned.
+         *
+         * @param previous the zip file that is being updated, or <code>null</code>
+         */
+        private int addEntries(ZipArchiveOutputStream zip, File dir, String[] paths, Path destination, ZipFile previous)
+                throws IOException, InterruptedException {
+            zip.setLevel(getDeflateLevel());
+            ForkJoinPool pool = null;
+            ParallelScatterZipCreator creator = null;
+            // The creator only closes, and so deletes, the scatter files once it has written them all to the zip
+            List<ScatterGatherBackingStore> scatterFiles = Collections.synchronizedList(new ArrayList<>());
+            if (parallelism > 1) {
+                Path tmpDir = destination.getParent();
+                pool = new ForkJoinPool(parallelism);
+                creator = new ParallelScatterZipCreator(pool, () -> {
+                    ScatterGatherBackingStore store = new FileBasedScatterGatherBackingStore(
+                            Files.createTempFile(tmpDir, destination.getFileName().toString(), ".scatter").toFile());
+                    scatterFiles.add(store);
+                    return store;
+                }, getDeflateLevel());
+            }
+            int count = 0;
+            int reused = 0;
+            try {
+                for (String path : paths) {
+                    File toArchive = new File(dir, path).getCanonicalFile();
+                    if (Files.isSameFile(toArchive.toPath(), destination)) {
+                        continue;
+                    }
+                    count++;
+                    ZipArchiveEntry existing = previous == null ? null : previous.getEntry(path.replace('\\', '/'));
+                    if (existing != null && isUnchanged(existing, toArchive)) {
+                        ZipArchiveEntry entry = new ZipArchiveEntry(existing);
+                        setModifyTime(entry, toArchive.lastModified());
+                        try (InputStream raw = previous.getRawInputStream(existing)) {
+                            zip.addRawArchiveEntry(entry, raw);
+                        }
+                        reused++;
+                    } else if (creator != null) {
+                        creator.addArchiveEntry(createEntry(toArchive, path), () -> {
+                            try {
+                                return Files.newInputStream(toArchive.toPath());
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                    } else {
+                        zip.putArchiveEntry(createEntry(toArchive, path));
+                        Files.copy(toArchive.toPath(), zip);
+                        zip.closeArchiveEntry();
+                    }
+                }
+                if (creator != null) {
+                    creator.writeTo(zip);
+                }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) cause).getCause();
+                }
+                throw new IOException("Failed to compress " + getDestination().getRemote(), cause);
+            } finally {
+                if (pool != null) {
+                    pool.shutdownNow();
+                    deleteScatterFiles(pool, scatterFiles);
+                }
+            }
+            if (previous != null) {
+                listener.getLogger().println("Reused " + reused + " unchanged entries.");
+            }
+            return count;
+        }
 
-            Archiver archiver = ArchiverFactory.ZIP.create(getDestination().write());
+        /**
+         * Closes and deletes the scatter files that are left when compressing failed, once no thread writes to them anymore.
+         */
+        private static void deleteScatterFiles(ForkJoinPool pool, List<ScatterGatherBackingStore> scatterFiles) throws IOException {
+            try {
+                pool.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (scatterFiles) {
+                for (ScatterGatherBackingStore store : scatterFiles) {
+                    store.close();
+                }
+            }
+        }
+
+        /**
+         * Checks if the entry in the previous zip file still has the content of the file.
+         * It has if the size is the same and the modification time is the same, or else if the checksum is the same.
+         * The exact modification time is in the NTFS extra field that this step writes.
+         * Entries written by other tools only have the two seconds resolution of zip timestamps,
+         * so for those the time of the file is rounded down to two seconds before comparing it.
+         */
+        static boolean isUnchanged(ZipArchiveEntry existing, File file) throws IOException {
+            if (existing.isDirectory() || existing.isUnixSymlink()) {
+                return false;
+            }
+            BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            if (existing.getSize() != attributes.size()) {
+                return false;
+            }
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            ZipExtraField extra = existing.getExtraField(X000A_NTFS.HEADER_ID);
+            Date exact = extra instanceof X000A_NTFS ? ((X000A_NTFS) extra).getModifyJavaTime() : null;
+            if (exact != null ? exact.getTime() == lastModified : Math.floorDiv(lastModified, 2000L) * 2000L == existing.getTime()) {
+                return true;
+            }
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[SAMPLE_SIZE];
+            try (InputStream in = Files.newInputStream(file.toPath())) {
+                int length;
+                while ((length = in.read(buffer)) != -1) {
+                    crc.update(buffer, 0, length);
+                }
+            }
+            return existing.getCrc() == crc.getValue();
+        }
+
+        /**
+         * Sets the modification time of the entry, both in the zip timestamp and exactly in an NTFS extra field.
+         */
+        static void setModifyTime(ZipArchiveEntry entry, long time) {
+            entry.setTime(time);
+            X000A_NTFS ntfs = new X000A_NTFS();
+            ntfs.setModifyJavaTime(new Date(time));
+            // Unset times would be read as 1601
+            ntfs.setAccessJavaTime(new Date(time));
+            ntfs.setCreateJavaTime(new Date(time));
+            entry.addExtraField(ntfs);
+        }
+
+        private String[] scan(File dir) {
             FileSet fs = Util.createFileSet(dir, glob, exclude);
             fs.setDefaultexcludes(defaultExcludes);
             DirectoryScanner scanner = fs.getDirectoryScanner(new org.apache.tools.ant.Project());
+            return scanner.getIncludedFiles();
+        }
+
+        private int getDeflateLevel() {
+            return level == null ? Deflater.DEFAULT_COMPRESSION : level;
+        }
+
+        /**
+         * Opens the zip file directly rather than through {@link FilePath#write()},
+         * entries that are stored need to be able to go back and fill in the checksum after the content has been written.
+         */
+        private static ZipArchiveOutputStream open(Path destination) throws IOException {
+            Files.createDirectories(destination.getParent());
+            return new ZipArchiveOutputStream(destination.toFile());
+        }
+
+        /**
+         * Creates an entry with the same metadata as {@link hudson.util.io.ArchiverFactory#ZIP} would have given it.
+         */
+        private ZipArchiveEntry createEntry(File file, String path) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            ZipArchiveEntry entry = new ZipArchiveEntry(path.replace('\\', '/'));
+            int mode = IOUtils.mode(file);
+            if (mode != -1) {
+                entry.setUnixMode(mode);
+            }
+            setModifyTime(entry, attributes.lastModifiedTime().toMillis());
+            entry.setSize(attributes.size());
+            if ((level != null && level == 0) || (storeIncompressible && isIncompressible(file))) {
+                entry.setMethod(ZipEntry.STORED);
+            } else {
+                entry.setMethod(ZipEntry.DEFLATED);
+            }
+            return entry;
+        }
+
+        /**
+         * Checks if the file is of a known compressed format,
+         * or if a sample from the beginning of the file shrinks by less than 10% when deflated with the fastest level.
+         */
+        static boolean isIncompressible(File file) throws IOException {
+            String name = file.getName();
+            int dot = name.lastIndexOf('.');
+            if (dot >= 0 && INCOMPRESSIBLE_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ENGLISH))) {
+                return true;
+            }
+            byte[] sample = new byte[SAMPLE_SIZE];
+            int length;
+            try (InputStream in = Files.newInputStream(file.toPath())) {
+                length = in.readNBytes(sample, 0, sample.length);
+            }
+            if (length == 0) {
+                return false;
+            }
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
             try {
-                for (String path : scanner.getIncludedFiles()) {
-                    File toArchive = new File(dir, path).getCanonicalFile();
-                    if (!Files.isSameFile(toArchive.toPath(), p)) {
-                        archiver.visit(toArchive, path);
-                    }
+                deflater.setInput(sample, 0, length);
+                deflater.finish();
+                byte[] buffer = new byte[SAMPLE_SIZE];
+                while (!deflater.finished()) {
+                    deflater.deflate(buffer);
                 }
+                return deflater.getBytesWritten() > length * 0.9;
             } finally {
-                archiver.close();
+                deflater.end();
             }
-            return archiver.countEntries();
         }
     }
 }
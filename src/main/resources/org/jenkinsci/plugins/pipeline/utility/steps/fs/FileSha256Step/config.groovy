@@ -31,3 +31,6 @@ f.entry(field: 'file', title: _('File')) {
     f.textbox()
 }
 
+f.entry(field: 'cache', title: _('Use remembered hashes')) {
+    f.checkbox(default: true)
+}
@@ -9,3 +9,7 @@ f.entry(field: 'file', title: _('File')) {
 f.entry(field: 'hash', title: _('Hash')) {
     f.textbox()
 }
+
+f.entry(field: 'cache', title: _('Use remembered hashes')) {
+    f.checkbox(default: true)
+}
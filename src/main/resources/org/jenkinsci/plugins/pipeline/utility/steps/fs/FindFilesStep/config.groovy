@@ -32,3 +32,51 @@ f.entry(field: 'glob', title: _('Glob')) {
 f.entry(field: 'excludes', title: _('Exclusions')) {
     f.textbox()
 }
+
+f.entry(field: 'sortBy', title: _('Sort By')) {
+    f.textbox()
+}
+
+f.entry(field: 'descending', title: _('Descending')) {
+    f.checkbox()
+}
+
+f.entry(field: 'offset', title: _('Offset')) {
+    f.number(min: 0)
+}
+
+f.entry(field: 'limit', title: _('Limit')) {
+    f.number(min: 0)
+}
+
+f.entry(field: 'outputFile', title: _('Output File')) {
+    f.textbox()
+}
+
+f.entry(field: 'type', title: _('Type')) {
+    f.textbox()
+}
+
+f.entry(field: 'minSize', title: _('Minimum Size')) {
+    f.number(min: 0)
+}
+
+f.entry(field: 'maxSize', title: _('Maximum Size')) {
+    f.number(min: 0)
+}
+
+f.entry(field: 'modifiedAfter', title: _('Modified After')) {
+    f.number(min: 0)
+}
+
+f.entry(field: 'maxDepth', title: _('Maximum Depth')) {
+    f.number(min: 0)
+}
+
+f.entry(field: 'followSymlinks', title: _('Follow Symbolic Links')) {
+    f.checkbox(default: true)
+}
+
+f.entry(field: 'extendedAttributes', title: _('Extended Attributes')) {
+    f.checkbox()
+}
@@ -37,6 +37,14 @@ f.entry(field: 'compress', title: _('Compress')) {
    f.textbox()
 }
 
+f.entry(field: 'compression', title: _('Compression')) {
+    f.textbox()
+}
+
+f.entry(field: 'threads', title: _('Threads')) {
+    f.number(default: 1, min: 1)
+}
+
 f.entry(field: 'glob', title: _('Glob')) {
     f.textbox()
 }
@@ -56,3 +64,7 @@ f.entry(field: 'overwrite', title: _('Overwrite')) {
 f.entry(field: 'defaultExcludes', title: _('Default Ant Excludes')) {
     f.checkbox()
 }
+
+f.entry(field: 'level', title: _('Compression Level')) {
+    f.number(min: 0, max: 9)
+}
@@ -51,3 +51,6 @@ f.entry(field: 'read', title: _('Read the file contents')) {
 f.entry(field: 'quiet', title: _('Suppress logging of each file')) {
     f.checkbox()
 }
+f.entry(field: 'parallelism', title: _('Parallelism')) {
+    f.number(default: 1, min: 1)
+}
@@ -52,3 +52,19 @@ f.entry(field: 'overwrite', title: _('Overwrite')) {
 f.entry(field: 'defaultExcludes', title: _('Default Ant Excludes')) {
     f.checkbox()
 }
+
+f.entry(field: 'parallelism', title: _('Parallelism')) {
+    f.number(default: 1, min: 1)
+}
+
+f.entry(field: 'level', title: _('Compression Level')) {
+    f.number(min: 0, max: 9)
+}
+
+f.entry(field: 'storeIncompressible', title: _('Store incompressible files')) {
+    f.checkbox()
+}
+
+f.entry(field: 'update', title: _('Update existing zip file')) {
+    f.checkbox()
+}
@@ -0,0 +1,103 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.fs;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncBufferedOutputStreamTest {
+
+    @Test
+    public void wrapsAround() throws IOException {
+        byte[] content = new byte[100_000];
+        new Random(1).nextBytes(content);
+        CountingOutputStream target = new CountingOutputStream();
+        try (OutputStream out = new AsyncBufferedOutputStream(target, 1000, 300, 60_000, "test")) {
+            // Odd sized writes so that they wrap around the end of the buffer
+            for (int off = 0; off < content.length; off += 777) {
+                out.write(content, off, Math.min(777, content.length - off));
+            }
+        }
+        assertArrayEquals(content, target.toByteArray());
+        assertTrue("Closed", target.closed);
+        assertTrue("Written in fewer, larger chunks than " + target.writes.get(), target.writes.get() < content.length / 300 * 2);
+    }
+
+    @Test
+    public void syncWaitsForTheWriter() throws IOException {
+        CountingOutputStream target = new CountingOutputStream();
+        try (AsyncBufferedOutputStream out = new AsyncBufferedOutputStream(target, 1000, 1000, 60_000, "test")) {
+            out.write('a');
+            out.flush();
+            out.sync();
+            assertEquals("a", target.toString());
+            out.write('b');
+        }
+        assertEquals("ab", target.toString());
+    }
+
+    @Test
+    public void drainedAfterInterval() throws Exception {
+        CountingOutputStream target = new CountingOutputStream();
+        try (OutputStream out = new AsyncBufferedOutputStream(target, 1000, 1000, 10, "test")) {
+            out.write('a');
+            for (int i = 0; i < 500 && target.size() == 0; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals("a", target.toString());
+        }
+    }
+
+    @Test
+    public void flushHandsOverToTheWriter() throws Exception {
+        CountingOutputStream target = new CountingOutputStream();
+        try (OutputStream out = new AsyncBufferedOutputStream(target, 1000, 1000, 60_000, "test")) {
+            out.write('a');
+            out.flush();
+            for (int i = 0; i < 500 && target.size() == 0; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals("a", target.toString());
+        }
+    }
+
+    @Test
+    public void failureIsThrownByNextCall() throws IOException {
+        OutputStream failing = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("disk full");
+            }
+        };
+        AsyncBufferedOutputStream out = new AsyncBufferedOutputStream(failing, 1000, 1, 60_000, "test");
+        out.write('a');
+        IOException e = assertThrows(IOException.class, out::sync);
+        assertEquals("disk full", e.getMessage());
+        assertThrows(IOException.class, () -> out.write('b'));
+        assertThrows(IOException.class, out::close);
+    }
+
+    private static class CountingOutputStream extends ByteArrayOutputStream {
+        final AtomicInteger writes = new AtomicInteger();
+        volatile boolean closed;
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            writes.incrementAndGet();
+            super.write(b, off, len);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.fs;
+
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Formatter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SHA-256 of a file of {@link Data#size} bytes by {@link ComputeHashCallable#hashOfFile(File)},
+ * compared to reading it through a 1k buffer and formatting the hex with {@link Formatter} like it used to.
+ */
+@JmhBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ComputeHashCallableBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Data {
+        @Param({"1024", "1048576", "4294967296"})
+        public long size;
+
+        File file;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            file = File.createTempFile("hash-benchmark", ".bin");
+            Random random = new Random(42);
+            byte[] chunk = new byte[1024 * 1024];
+            try (OutputStream out = Files.newOutputStream(file.toPath())) {
+                for (long written = 0; written < size; written += chunk.length) {
+                    random.nextBytes(chunk);
+                    out.write(chunk, 0, (int) Math.min(chunk.length, size - written));
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    @Benchmark
+    public String hashOfFile(Data data) throws Exception {
+        return new ComputeHashCallable("SHA-256").hashOfFile(data.file);
+    }
+
+    @Benchmark
+    public String bufferedInputStream(Data data) throws Exception {
+        MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+        try (InputStream is = new BufferedInputStream(new FileInputStream(data.file))) {
+            byte[] buffer = new byte[1024];
+            for (int read; (read = is.read(buffer)) != -1; ) {
+                messageDigest.update(buffer, 0, read);
+            }
+        }
+        try (Formatter formatter = new Formatter()) {
+            for (byte b : messageDigest.digest()) {
+                formatter.format("%02x", b);
+            }
+            return formatter.toString();
+        }
+    }
+}
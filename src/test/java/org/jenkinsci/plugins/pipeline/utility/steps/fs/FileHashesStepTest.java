@@ -0,0 +1,69 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.fs;
+
+import hudson.model.Label;
+import hudson.model.Result;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.jenkinsci.plugins.workflow.steps.StepConfigTester;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class FileHashesStepTest {
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Before
+    public void setup() throws Exception {
+        j.createOnlineSlave(Label.get("slaves"));
+    }
+
+    @Test
+    public void configRoundTrip() throws Exception {
+        FileHashesStep step = new FileHashesStep("release.zip");
+        FileHashesStep step2 = new StepConfigTester(j).configRoundTrip(step);
+        j.assertEqualDataBoundBeans(step, step2);
+    }
+
+    @Test
+    public void hashesWithAllAlgorithms() throws Exception {
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node('slaves') {\n" +
+                        "  writeFile file: 'f.txt', text: 'abc', encoding: 'UTF-8'\n" +
+                        "  def hashes = fileHashes file: 'f.txt', algorithms: ['SHA-1', 'SHA-256', 'SHA-512', 'SHA-1']\n" +
+                        "  assert hashes == ['SHA-1': 'a9993e364706816aba3e25717850c26c9cd0d89d',\n" +
+                        "                    'SHA-256': 'ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad',\n" +
+                        "                    'SHA-512': 'ddaf35a193617abacc417349ae20413112e6fa4e89a97ea20a9eeee64b55d39a2192992a274fc1a836ba3c23a3feebbd454d4423643ce80e2a9ac94fa54ca49f']\n" +
+                        "  assert fileHashes(file: 'f.txt', algorithms: ['MD5'])['MD5'] == '900150983cd24fb0d6963f7d28e17f72'\n" +
+                        "  assert fileHashes(file: 'missing.txt', algorithms: ['SHA-256']) == null\n" +
+                        "}", true));
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+    }
+
+    @Test
+    public void unknownAlgorithm() throws Exception {
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node('slaves') {\n" +
+                        "  writeFile file: 'f.txt', text: 'abc', encoding: 'UTF-8'\n" +
+                        "  fileHashes file: 'f.txt', algorithms: ['SHA-256', 'NOPE-1', ' SHA-1']\n" +
+                        "}", true));
+        WorkflowRun run = j.assertBuildStatus(Result.FAILURE, p.scheduleBuild2(0).get());
+        j.assertLogContains("Unknown hash algorithms NOPE-1,  SHA-1", run);
+    }
+
+    @Test
+    public void blankAlgorithm() throws Exception {
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node('slaves') {\n" +
+                        "  writeFile file: 'f.txt', text: 'abc', encoding: 'UTF-8'\n" +
+                        "  fileHashes file: 'f.txt', algorithms: ['SHA-256', '', 'MD5']\n" +
+                        "}", true));
+        WorkflowRun run = j.assertBuildStatus(Result.FAILURE, p.scheduleBuild2(0).get());
+        j.assertLogContains("Blank hash algorithm in [SHA-256, , MD5]", run);
+    }
+}
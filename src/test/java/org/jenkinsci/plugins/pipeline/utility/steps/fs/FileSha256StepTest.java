@@ -23,6 +23,8 @@ public class FileSha256StepTest {
         FileSha256Step step = new FileSha256Step("dir/f.txt");
         FileSha256Step step2 = new StepConfigTester(j).configRoundTrip(step);
         j.assertEqualDataBoundBeans(step, step2);
+        step.setCache(false);
+        j.assertEqualDataBoundBeans(step, new StepConfigTester(j).configRoundTrip(step));
     }
 
     @Test
@@ -53,6 +55,62 @@ public class FileSha256StepTest {
         j.assertBuildStatusSuccess(p.scheduleBuild2(0));
     }
 
+    @Test
+    public void remembersHashOfUnchangedFile() throws Exception {
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node('slaves') {\n" +
+                        "  dir('test') {\n" +
+                        "    writeFile file: 'f.txt', text: 'abc', encoding: 'UTF-8'\n" +
+                        "    touch file: 'f.txt', timestamp: 0\n" +
+                        "    assert sha256('f.txt') == 'ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad'\n" +
+                        "    assert fileExists('../test@tmp/hashes.cache')\n" +
+                        "    assert sha256('f.txt') == 'ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad'\n" +
+                        "    writeFile file: 'f.txt', text: 'abd', encoding: 'UTF-8'\n" +
+                        "    assert sha256('f.txt') == 'a52d159f262b2c6ddb724a61840befc36eb30c88877a4030b65cbe86298449c9'\n" +
+                        "  }\n" +
+                        "}", true));
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+    }
+
+    @Test
+    public void cacheTurnedOff() throws Exception {
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node('slaves') {\n" +
+                        "  dir('test') {\n" +
+                        "    writeFile file: 'f.txt', text: 'abc', encoding: 'UTF-8'\n" +
+                        "    touch file: 'f.txt', timestamp: 0\n" +
+                        "    assert sha256('f.txt') == 'ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad'\n" +
+                        "    // Replaced with the same size and modification time\n" +
+                        "    writeFile file: 'f.txt', text: 'xyz', encoding: 'UTF-8'\n" +
+                        "    touch file: 'f.txt', timestamp: 0\n" +
+                        "    assert sha256('f.txt') == 'ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad'\n" +
+                        "    assert sha256(file: 'f.txt', cache: false) == '3608bca1e44ea6c4d268eb6db02260269892c0b42b86bbf1e77a6fa16c3c9282'\n" +
+                        "  }\n" +
+                        "}", true));
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+    }
+
+    @Test
+    public void directory() throws Exception {
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node('slaves') {\n" +
+                        "  dir('test') {\n" +
+                        "    writeFile file: 'tree/a.txt', text: 'abc', encoding: 'UTF-8'\n" +
+                        "    writeFile file: 'tree/sub/b.txt', text: 'abd', encoding: 'UTF-8'\n" +
+                        "    assert sha256('tree') == '6ca4d766addfad643602464f5b8e97b6dc8885d9cd879993e7a0db27fcb4f251'\n" +
+                        "    writeFile file: 'tree/sub/b.txt', text: 'abc', encoding: 'UTF-8'\n" +
+                        "    assert sha256('tree') == 'c5e869b9f0076dc0e7f47b8df7deae3ff2e9674506d6ae43f475171ea38e6b98'\n" +
+                        "    verifySha256 file: 'tree', hash: 'c5e869b9f0076dc0e7f47b8df7deae3ff2e9674506d6ae43f475171ea38e6b98'\n" +
+                        "    writeFile file: 'empty/.keep', text: '', encoding: 'UTF-8'\n" +
+                        "    assert sha256('empty') != sha256('empty/.keep')\n" +
+                        "  }\n" +
+                        "}", true));
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+    }
+
     @Test
     public void returnsNullIfFileNotFound() throws Exception {
         WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
@@ -32,7 +32,11 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.jvnet.hudson.test.JenkinsRule;
 
+import hudson.Functions;
 import hudson.model.Label;
+import hudson.model.Result;
+
+import static org.junit.Assume.assumeFalse;
 
 /**
  * Tests for {@link FindFilesStep}
@@ -176,4 +180,121 @@ public class FindFilesStepTest {
         j.assertLogNotContains("F: b/11.txt", run);
         j.assertLogNotContains("F: b/12.txt", run);
     }
+
+    @Test
+    public void attributes() throws Exception {
+        String flow = CODE.replace("%TESTCODE%",
+                "touch file: 'b/11.txt', timestamp: 1000000\n" +
+                        "def files = findFiles()\n" +
+                        "for(int i = 0; i < files.length; i++) {\n" +
+                        "  echo \"F: ${files[i].path.replace('\\\\', '/')} ${files[i].directory}\"\n" +
+                        "}\n" +
+                        "files = findFiles(glob: 'b/11.txt')\n" +
+                        "echo \"L: ${files[0].name} ${files[0].length} ${files[0].lastModified}\""
+        );
+        p.setDefinition(new CpsFlowDefinition(flow, true));
+        WorkflowRun run = j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        j.assertLogContains("F: 1.txt false", run);
+        j.assertLogContains("F: a/ true", run);
+        j.assertLogContains("L: 11.txt 27 1000000", run);
+    }
+
+    @Test
+    public void sortAndPage() throws Exception {
+        String flow = CODE.replace("%TESTCODE%",
+                "def files = findFiles(glob: '**/*.txt', sortBy: 'path', offset: 2, limit: 3)\n" +
+                        "echo \"P: ${files.collect { it.path.replace('\\\\', '/') }.join(',')}\"\n" +
+                        "files = findFiles(glob: '**/*.txt', sortBy: 'name', descending: true, limit: 1)\n" +
+                        "echo \"N: ${files[0].name}\"\n" +
+                        "echo \"E: ${findFiles(glob: '**/*.txt', offset: 20).length}\""
+        );
+        p.setDefinition(new CpsFlowDefinition(flow, true));
+        WorkflowRun run = j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        j.assertLogContains("P: a/3.txt,a/4.txt,a/aa/5.txt", run);
+        j.assertLogContains("N: 9.txt", run);
+        j.assertLogContains("E: 0", run);
+    }
+
+    @Test
+    public void unknownSortBy() throws Exception {
+        String flow = CODE.replace("%TESTCODE%", "findFiles(glob: '**/*.txt', sortBy: 'color')");
+        p.setDefinition(new CpsFlowDefinition(flow, true));
+        WorkflowRun run = j.assertBuildStatus(Result.FAILURE, p.scheduleBuild2(0));
+        j.assertLogContains("Unknown sort order color", run);
+    }
+
+    @Test
+    public void outputFile() throws Exception {
+        String flow = CODE.replace("%TESTCODE%",
+                "def count = findFiles(glob: '**/*.txt', sortBy: 'path', outputFile: 'out/files.txt')\n" +
+                        "echo \"C: ${count}\"\n" +
+                        "count = findFiles(glob: '**/*.txt', sortBy: 'path', outputFile: 'out/files.txt')\n" +
+                        "echo \"C2: ${count}\"\n" +
+                        "def lines = readFile('out/files.txt').readLines()\n" +
+                        "echo \"L: ${lines.size()} ${lines[0]}\""
+        );
+        p.setDefinition(new CpsFlowDefinition(flow, true));
+        WorkflowRun run = j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        j.assertLogContains("C: 12", run);
+        j.assertLogContains("C2: 12", run);
+        j.assertLogContains("L: 12 {\"name\":\"1.txt\",\"path\":\"1.txt\",\"directory\":false,\"length\":27,\"lastModified\":", run);
+    }
+
+    @Test
+    public void overlappingIncludesAndExcludedTree() throws Exception {
+        String flow = CODE.replace("%TESTCODE%",
+                "def files = findFiles(glob: 'a/**/*.txt, a/ab/**', excludes: 'a/aa/', sortBy: 'path')\n" +
+                        "echo \"${files.length} files\"\n" +
+                        "echo \"P: ${files.collect { it.path.replace('\\\\', '/') }.join(',')}\""
+        );
+        p.setDefinition(new CpsFlowDefinition(flow, true));
+        WorkflowRun run = j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        j.assertLogContains("6 files", run);
+        j.assertLogContains("P: a/3.txt,a/4.txt,a/ab/7.txt,a/ab/8.txt,a/ab/aba/10.txt,a/ab/aba/9.txt", run);
+    }
+
+    @Test
+    public void filters() throws Exception {
+        String flow = CODE.replace("%TESTCODE%",
+                "writeFile file: 'a/big.txt', text: 'Who rules the world? Girls! Who rules the world? Girls!'\n" +
+                        "touch file: 'b/11.txt', timestamp: 4102444800000\n" +
+                        "echo \"D: ${findFiles(glob: '**', type: 'dir').length}\"\n" +
+                        "echo \"C: ${findFiles(type: 'dir').length}\"\n" +
+                        "echo \"M: ${findFiles(glob: '**/*.txt', maxDepth: 2).length}\"\n" +
+                        "echo \"S: ${findFiles(glob: '**/*.txt', minSize: 28).collect { it.name }}\"\n" +
+                        "echo \"Z: ${findFiles(glob: '**/*.txt', maxSize: 27).length}\"\n" +
+                        "echo \"T: ${findFiles(glob: '**/*.txt', modifiedAfter: 4000000000000).collect { it.name }}\"\n" +
+                        "def f = findFiles(glob: '1.txt', extendedAttributes: true)[0]\n" +
+                        "echo \"X: ${f.symbolicLink} ${f.permissions != null} ${f.inode != null}\""
+        );
+        p.setDefinition(new CpsFlowDefinition(flow, true));
+        WorkflowRun run = j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        j.assertLogContains("D: 5", run);
+        j.assertLogContains("C: 2", run);
+        j.assertLogContains("M: 7", run);
+        j.assertLogContains("S: [big.txt]", run);
+        j.assertLogContains("Z: 12", run);
+        j.assertLogContains("T: [11.txt]", run);
+        j.assertLogContains(Functions.isWindows() ? "X: false false false" : "X: false true true", run);
+    }
+
+    @Test
+    public void specialFiles() throws Exception {
+        assumeFalse(Functions.isWindows());
+        String flow = CODE.replace("%TESTCODE%",
+                "sh 'mkfifo b/pipe'\n" +
+                        "echo \"F: ${findFiles(glob: 'b/*').collect { it.name }.sort()}\""
+        );
+        p.setDefinition(new CpsFlowDefinition(flow, true));
+        WorkflowRun run = j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        j.assertLogContains("F: [11.txt, 12.txt, pipe]", run);
+    }
+
+    @Test
+    public void unknownType() throws Exception {
+        String flow = CODE.replace("%TESTCODE%", "findFiles(glob: '**', type: 'socket')");
+        p.setDefinition(new CpsFlowDefinition(flow, true));
+        WorkflowRun run = j.assertBuildStatus(Result.FAILURE, p.scheduleBuild2(0));
+        j.assertLogContains("Unknown type socket", run);
+    }
 }
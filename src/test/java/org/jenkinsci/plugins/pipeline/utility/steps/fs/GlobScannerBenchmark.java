@@ -0,0 +1,75 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.fs;
+
+import hudson.Util;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.apache.commons.io.FileUtils;
+import org.apache.tools.ant.DirectoryScanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding files in a workspace of {@link Workspace#files} files by {@link GlobScanner},
+ * compared to the {@link DirectoryScanner} that findFiles used to use.
+ * The workspace has 100 top level directories of 100 directories each, with the files spread evenly over them.
+ */
+@JmhBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GlobScannerBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Workspace {
+        @Param({"10000", "1000000"})
+        public int files;
+
+        /**
+         * All the files, or only those in the first top level directory which the glob scanner prunes down to.
+         */
+        @Param({"**/*.txt", "d0/**/*.txt"})
+        public String glob;
+
+        File dir;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            dir = Files.createTempDirectory("glob-benchmark").toFile();
+            for (int i = 0; i < files; i++) {
+                Path file = dir.toPath().resolve("d" + i % 100).resolve("d" + i / 100 % 100).resolve(i + ".txt");
+                Files.createDirectories(file.getParent());
+                Files.createFile(file);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    @Benchmark
+    public List<FileWrapper> globScanner(Workspace workspace) {
+        return new GlobScanner(workspace.glob, null, true, FileCriteria.ANY).scan(workspace.dir);
+    }
+
+    @Benchmark
+    public String[] directoryScanner(Workspace workspace) {
+        DirectoryScanner scanner = Util.createFileSet(workspace.dir, workspace.glob, null)
+                .getDirectoryScanner(new org.apache.tools.ant.Project());
+        return scanner.getIncludedFiles();
+    }
+}
@@ -0,0 +1,102 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.fs;
+
+import hudson.model.Label;
+import hudson.model.Result;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.jenkinsci.plugins.workflow.steps.StepConfigTester;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+
+public class HashFilesStepTest {
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Before
+    public void setup() throws Exception {
+        j.createOnlineSlave(Label.get("slaves"));
+    }
+
+    @Test
+    public void configRoundTrip() throws Exception {
+        HashFilesStep step = new HashFilesStep("**/*.jar");
+        step.setExcludes("**/*-sources.jar");
+        step.setAlgorithm("SHA-512");
+        step.setManifest("SHA512SUMS");
+        step.setParallelism(4);
+        HashFilesStep step2 = new StepConfigTester(j).configRoundTrip(step);
+        j.assertEqualDataBoundBeans(step, step2);
+    }
+
+    @Test
+    public void hashesMatchingFiles() throws Exception {
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node('slaves') {\n" +
+                        "  dir('test') {\n" +
+                        "    writeFile file: 'f.txt', text: 'abc', encoding: 'UTF-8'\n" +
+                        "    touch 'sub/empty.txt'\n" +
+                        "    writeFile file: 'other.dat', text: 'abc', encoding: 'UTF-8'\n" +
+                        "    def hashes = hashFiles glob: '**/*.txt', parallelism: 2\n" +
+                        "    assert hashes.size() == 2\n" +
+                        "    assert hashes['f.txt'] == 'ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad'\n" +
+                        "    assert hashes['sub/empty.txt'] == 'e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855'\n" +
+                        "    hashes = hashFiles glob: '**/*', excludes: 'sub/**', algorithm: 'SHA-1'\n" +
+                        "    assert hashes == ['f.txt': 'a9993e364706816aba3e25717850c26c9cd0d89d', 'other.dat': 'a9993e364706816aba3e25717850c26c9cd0d89d']\n" +
+                        "  }\n" +
+                        "}", true));
+        WorkflowRun run = j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        j.assertLogContains("Hashed 2 files", run);
+    }
+
+    @Test
+    public void writesManifest() throws Exception {
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node('slaves') {\n" +
+                        "  dir('test') {\n" +
+                        "    writeFile file: 'b.txt', text: 'abc', encoding: 'UTF-8'\n" +
+                        "    touch 'a.txt'\n" +
+                        "    hashFiles glob: '**/*', manifest: 'SHA256SUMS'\n" +
+                        "    hashFiles glob: '**/*', manifest: 'SHA256SUMS'\n" +
+                        "    assert readFile('SHA256SUMS') == \n" +
+                        "        'e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855  a.txt\\n' +\n" +
+                        "        'ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad  b.txt\\n'\n" +
+                        "  }\n" +
+                        "}", true));
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+    }
+
+    @Test
+    public void manifestEscapesPaths() throws Exception {
+        Map<String, String> hashes = new TreeMap<>();
+        hashes.put("a\nb.txt", "11");
+        hashes.put("a\\b.txt", "22");
+        hashes.put("ab.txt", "33");
+        StringWriter writer = new StringWriter();
+        ComputeHashesCallable.writeManifest(writer, hashes);
+        assertEquals("\\11  a\\nb.txt\n" +
+                "\\22  a\\\\b.txt\n" +
+                "33  ab.txt\n", writer.toString());
+    }
+
+    @Test
+    public void unknownAlgorithm() throws Exception {
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node('slaves') {\n" +
+                        "  hashFiles glob: '**/*', algorithm: 'NOPE-1'\n" +
+                        "}", true));
+        WorkflowRun run = j.assertBuildStatus(Result.FAILURE, p.scheduleBuild2(0).get());
+        j.assertLogContains("Unknown hash algorithm NOPE-1", run);
+    }
+}
@@ -29,6 +29,9 @@ import java.io.FileWriter;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import org.apache.commons.io.IOUtils;
 import org.jenkinsci.plugins.pipeline.utility.steps.FilenameTestsUtils;
@@ -41,8 +44,14 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.jvnet.hudson.test.JenkinsRule;
 
+import hudson.Functions;
 import hudson.model.Label;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+
 /**
  * Tests {@link PrependToFileStep}.
  */
@@ -97,4 +106,47 @@ public class PrependToFileStepTest {
                         "}", true));
         this.j.assertBuildStatusSuccess(p.scheduleBuild2(0));
     }
+
+    @Test
+    public void keepsOriginalBytes() throws Exception {
+        final File output = this.temp.newFile();
+        // Latin-1 text that isn't valid UTF-8, so it would be mangled by decoding it
+        final byte[] original = "caf\u00e9\n".getBytes(StandardCharsets.ISO_8859_1);
+        Files.write(output.toPath(), original);
+
+        new PrependToFileStep.PrependCallable("\u00fcber ").invoke(output, null);
+
+        final byte[] prepended = "\u00fcber ".getBytes(StandardCharsets.UTF_8);
+        final byte[] expected = new byte[prepended.length + original.length];
+        System.arraycopy(prepended, 0, expected, 0, prepended.length);
+        System.arraycopy(original, 0, expected, prepended.length, original.length);
+        assertArrayEquals(expected, Files.readAllBytes(output.toPath()));
+        assertEquals("No temporary file left behind", 1, output.getParentFile().list().length);
+    }
+
+    @Test
+    public void newFileGetsDefaultPermissions() throws Exception {
+        assumeFalse(Functions.isWindows());
+        final Path dir = this.temp.newFolder().toPath();
+        final Path file = dir.resolve("new.txt");
+        final Path reference = Files.createFile(dir.resolve("reference.txt"));
+
+        new PrependToFileStep.PrependCallable("prepended").invoke(file.toFile(), null);
+
+        assertEquals("prepended", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        assertEquals(Files.getPosixFilePermissions(reference), Files.getPosixFilePermissions(file));
+    }
+
+    @Test
+    public void followsSymbolicLink() throws Exception {
+        assumeFalse(Functions.isWindows());
+        final Path dir = this.temp.newFolder().toPath();
+        final Path target = Files.write(dir.resolve("target.txt"), "original".getBytes(StandardCharsets.UTF_8));
+        final Path link = Files.createSymbolicLink(dir.resolve("link.txt"), target);
+
+        new PrependToFileStep.PrependCallable("prepended ").invoke(link.toFile(), null);
+
+        assertTrue("Still a link", Files.isSymbolicLink(link));
+        assertEquals("prepended original", new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+    }
 }
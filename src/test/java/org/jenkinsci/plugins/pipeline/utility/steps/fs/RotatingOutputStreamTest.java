@@ -0,0 +1,85 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.fs;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.apache.commons.io.IOUtils;
+import org.jenkinsci.plugins.pipeline.utility.steps.tar.TarCompression;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RotatingOutputStreamTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void rotatesAndKeepsMaxFiles() throws IOException {
+        Path file = temp.getRoot().toPath().resolve("x.log");
+        try (OutputStream out = new RotatingOutputStream(file, TarCompression.NONE, 10, 2)) {
+            for (int i = 0; i < 5; i++) {
+                out.write(("line " + i + " of ten bytes\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals("line 4 of ten bytes\n", read(file));
+        assertEquals("line 3 of ten bytes\n", read(file.resolveSibling("x.log.1")));
+        assertEquals("line 2 of ten bytes\n", read(file.resolveSibling("x.log.2")));
+        assertFalse(Files.exists(file.resolveSibling("x.log.3")));
+    }
+
+    @Test
+    public void keepsAllFiles() throws IOException {
+        Path file = temp.getRoot().toPath().resolve("x.log");
+        try (OutputStream out = new RotatingOutputStream(file, TarCompression.NONE, 1, 0)) {
+            for (int i = 0; i < 5; i++) {
+                out.write(("line " + i + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals("line 4\n", read(file));
+        assertEquals("line 0\n", read(file.resolveSibling("x.log.4")));
+    }
+
+    @Test
+    public void appendsGzipMember() throws IOException {
+        Path file = temp.getRoot().toPath().resolve("x.log.gz");
+        for (int i = 0; i < 2; i++) {
+            try (OutputStream out = new RotatingOutputStream(file, TarCompression.GZIP, 0, 0)) {
+                out.write(("run " + i + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            assertEquals("run 0\nrun 1\n", IOUtils.toString(in, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void rotatesCompressed() throws IOException {
+        Path file = temp.getRoot().toPath().resolve("x.log.zst");
+        byte[] line = "a line that is repeated over and over again\n".getBytes(StandardCharsets.UTF_8);
+        try (OutputStream out = new RotatingOutputStream(file, TarCompression.ZSTD, 1, 0)) {
+            out.write(line);
+            // Only once the first file is rotated, when the compressor has written anything
+            out.flush();
+            out.write(line);
+        }
+        assertTrue(Files.exists(file.resolveSibling("x.log.zst.1")));
+        try (InputStream in = new ZstdInputStream(Files.newInputStream(file))) {
+            assertEquals(new String(line, StandardCharsets.UTF_8), IOUtils.toString(in, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
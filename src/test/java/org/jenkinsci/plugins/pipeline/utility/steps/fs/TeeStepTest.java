@@ -28,6 +28,14 @@ import hudson.Functions;
 import hudson.model.ParametersDefinitionProperty;
 import hudson.model.Result;
 import hudson.model.StringParameterDefinition;
+import hudson.remoting.Channel;
+import hudson.remoting.Command;
+import hudson.slaves.DumbSlave;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import org.apache.commons.io.IOUtils;
 import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.jenkinsci.plugins.workflow.job.WorkflowRun;
@@ -42,7 +50,11 @@ import org.jvnet.hudson.test.JenkinsRule;
 import org.jvnet.hudson.test.JenkinsSessionRule;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.stringContainsInOrder;
+import static org.junit.Assume.assumeFalse;
 
 public class TeeStepTest {
 
@@ -133,12 +145,164 @@ public class TeeStepTest {
         });
     }
 
+    @Test
+    public void agentWritesLocally() throws Throwable {
+        assumeFalse(Functions.isWindows());
+        sessions.then(r -> {
+            DumbSlave agent = r.createSlave("remote", null, null);
+            r.waitOnline(agent);
+            AtomicLong toAgent = new AtomicLong();
+            ((Channel) agent.getChannel()).addListener(new Channel.Listener() {
+                @Override
+                public void onWrite(Channel channel, Command cmd, long blockSize) {
+                    toAgent.addAndGet(blockSize);
+                }
+            });
+            WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+            long size = 50 * 1024 * 1024;
+            p.setDefinition(new CpsFlowDefinition(
+                    "node('remote') {\n" +
+                            "  tee('x.log') {\n" +
+                            "    sh 'yes 0123456789012345678901234567890123456789012345678901234567890123456789 | head -c " + size + "'\n" +
+                            "  }\n" +
+                            "}", true));
+            r.buildAndAssertSuccess(p);
+            assertThat(agent.getWorkspaceFor(p).child("x.log").length(), greaterThanOrEqualTo(size));
+            // The output is sent to the controller for the build log, but not back again for the file
+            assertThat(toAgent.get(), lessThan(size / 10));
+        });
+    }
+
+    @Test
+    public void orderKeptWhenAgentTakesOver() throws Throwable {
+        assumeFalse(Functions.isWindows());
+        sessions.then(r -> {
+            r.createSlave("remote", null, null);
+            WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+            p.setDefinition(new CpsFlowDefinition(
+                    "node('remote') {\n" +
+                            "  tee('x.log') {\n" +
+                            "    for (int i = 0; i < 200; i++) {\n" +
+                            "      echo(/controller line $i/)\n" +
+                            "    }\n" +
+                            "    sh 'echo agent line'\n" +
+                            "    echo 'controller again'\n" +
+                            "  }\n" +
+                            "  def log = readFile('x.log')\n" +
+                            "  echo(/order: ${log.indexOf('controller line 199') < log.indexOf('agent line') && log.lastIndexOf('agent line') < log.indexOf('controller again')}/)\n" +
+                            "}", true));
+            WorkflowRun b = r.buildAndAssertSuccess(p);
+            r.assertLogContains("order: true", b);
+        });
+    }
+
+    @Test
+    public void agentStepsShareTheFile() throws Throwable {
+        assumeFalse(Functions.isWindows());
+        sessions.then(r -> {
+            r.createSlave("remote", null, null);
+            WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+            p.setDefinition(new CpsFlowDefinition(
+                    "node('remote') {\n" +
+                            "  tee(file: 'x.log', include: '^[a-z ]+ line$') {\n" +
+                            "    sh 'echo first agent line'\n" +
+                            "    sh 'echo second agent line'\n" +
+                            "    echo 'controller line'\n" +
+                            "  }\n" +
+                            "  echo(/got: ${readFile('x.log').trim().replaceAll('\\s+', ' ')}/)\n" +
+                            "}", true));
+            WorkflowRun b = r.buildAndAssertSuccess(p);
+            r.assertLogContains("got: first agent line second agent line controller line", b);
+        });
+    }
+
+    @Test
+    public void compressed() throws Throwable {
+        sessions.then(r -> {
+            DumbSlave agent = r.createSlave("remote", null, null);
+            WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+            p.setDefinition(new CpsFlowDefinition(
+                    "node('remote') {\n" +
+                            "  tee(file: 'x.log.gz', compression: 'gzip') {\n" +
+                            "    echo 'first message'\n" +
+                            "    if (isUnix()) { sh 'echo second message' } else { bat 'echo second message' }\n" +
+                            "  }\n" +
+                            "}", true));
+            r.buildAndAssertSuccess(p);
+            try (InputStream in = new GZIPInputStream(agent.getWorkspaceFor(p).child("x.log.gz").read())) {
+                assertThat(IOUtils.toString(in, StandardCharsets.UTF_8), stringContainsInOrder("first message", "second message"));
+            }
+        });
+    }
+
+    @Test
+    public void filtersAndReturnsMatches() throws Throwable {
+        sessions.then(r -> {
+            r.createSlave("remote", null, null);
+            WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+            p.setDefinition(new CpsFlowDefinition(
+                    "node('remote') {\n" +
+                            "  def matches = tee(file: 'x.log', include: '^keep', exclude: 'skip', maxMatches: 2) {\n" +
+                            "    echo 'keep 1'\n" +
+                            "    echo 'drop'\n" +
+                            "    echo 'keep skip'\n" +
+                            "    if (isUnix()) { sh 'echo keep 2; echo keep 3' } else { bat '@echo keep 2\\r\\n@echo keep 3' }\n" +
+                            "  }\n" +
+                            "  echo(/matches: ${matches}/)\n" +
+                            "  echo(/got: ${readFile('x.log').trim().replaceAll('\\s+', ' ')}/)\n" +
+                            "}", true));
+            WorkflowRun b = r.buildAndAssertSuccess(p);
+            r.assertLogContains("matches: [keep 1, keep 2]", b);
+            r.assertLogContains("got: keep 1 keep 2 keep 3", b);
+        });
+    }
+
+    @Test
+    public void failingBodyDropsMatches() throws Throwable {
+        sessions.then(r -> {
+            WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+            p.setDefinition(new CpsFlowDefinition(
+                    "node {\n" +
+                            "  tee(file: 'x.log', include: '^keep', maxMatches: 2) {\n" +
+                            "    echo 'keep 1'\n" +
+                            "    error 'boom'\n" +
+                            "  }\n" +
+                            "}", true));
+            WorkflowRun b = r.assertBuildStatus(Result.FAILURE, p.scheduleBuild2(0));
+            r.assertLogContains("boom", b);
+            assertThat(TeeStep.LOCAL_MATCHES.keySet(), empty());
+        });
+    }
+
+    @Test
+    public void unknownCompression() throws Throwable {
+        sessions.then(r -> {
+            WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+            p.setDefinition(new CpsFlowDefinition(
+                    "node {\n" +
+                            "  tee(file: 'x.log', compression: 'rar') {\n" +
+                            "    echo 'message'\n" +
+                            "  }\n" +
+                            "}", true));
+            WorkflowRun b = r.assertBuildStatus(Result.FAILURE, p.scheduleBuild2(0));
+            r.assertLogContains("Unknown compression rar", b);
+        });
+    }
+
     @Test
     public void configRoundtrip() throws Throwable {
         sessions.then(r -> {
                 TeeStep s = new TeeStep("x.log");
                 StepConfigTester t = new StepConfigTester(r);
                 r.assertEqualDataBoundBeans(s, t.configRoundTrip(s));
+                s.setCompression("zstd");
+                s.setMaxSize(1024 * 1024);
+                s.setMaxFiles(3);
+                r.assertEqualDataBoundBeans(s, t.configRoundTrip(s));
+                s.setInclude("^\\[ERROR\\]");
+                s.setExclude("flaky");
+                s.setMaxMatches(10);
+                r.assertEqualDataBoundBeans(s, t.configRoundTrip(s));
         });
     }
 
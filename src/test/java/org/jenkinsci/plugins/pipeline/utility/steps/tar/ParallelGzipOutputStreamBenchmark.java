@@ -0,0 +1,70 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.tar;
+
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gzip compression of {@link Data#size} bytes by {@link ParallelGzipOutputStream} compared to the single threaded stream.
+ * Divide the size by the average time for the throughput in MB/s.
+ */
+@JmhBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelGzipOutputStreamBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Data {
+        @Param({"2", "4", "8"})
+        public int threads;
+
+        @Param({"67108864"})
+        public int size;
+
+        byte[] content;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            // Text like data from a small alphabet that compresses to about a third
+            Random random = new Random(42);
+            content = new byte[size];
+            for (int i = 0; i < size; i++) {
+                content[i] = (byte) ('a' + random.nextInt(random.nextBoolean() ? 4 : 26));
+            }
+        }
+    }
+
+    @Benchmark
+    public void singleThreaded(Data data) throws IOException {
+        try (OutputStream out = new GzipCompressorOutputStream(OutputStream.nullOutputStream())) {
+            write(data, out);
+        }
+    }
+
+    @Benchmark
+    public void parallel(Data data) throws IOException {
+        try (OutputStream out = new ParallelGzipOutputStream(OutputStream.nullOutputStream(), null, data.threads)) {
+            write(data, out);
+        }
+    }
+
+    private static void write(Data data, OutputStream out) throws IOException {
+        // The same record size as the tar stream writes with
+        for (int off = 0; off < data.size; off += 512) {
+            out.write(data.content, off, Math.min(512, data.size - off));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.tar;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelGzipOutputStreamTest {
+
+    @Test
+    public void empty() throws IOException {
+        assertRoundTrip(new byte[0], 4);
+    }
+
+    @Test
+    public void smallerThanOneBlock() throws IOException {
+        assertRoundTrip(content(1000), 4);
+    }
+
+    @Test
+    public void exactlyOneBlock() throws IOException {
+        assertRoundTrip(content(ParallelGzipOutputStream.BLOCK_SIZE), 4);
+    }
+
+    @Test
+    public void manyBlocks() throws IOException {
+        assertRoundTrip(content(ParallelGzipOutputStream.BLOCK_SIZE * 20 + 12345), 4);
+    }
+
+    @Test
+    public void moreBlocksThanPending() throws IOException {
+        assertRoundTrip(content(ParallelGzipOutputStream.BLOCK_SIZE * 10 + 1), 1);
+    }
+
+    @Test
+    public void singleBytes() throws IOException {
+        byte[] content = content(ParallelGzipOutputStream.BLOCK_SIZE + 100);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (OutputStream out = new ParallelGzipOutputStream(gzip, null, 2)) {
+            for (byte b : content) {
+                out.write(b);
+            }
+        }
+        assertArrayEquals(content, gunzip(gzip.toByteArray()));
+    }
+
+    @Test
+    public void dictionaryKeepsRepetitionAcrossBlocks() throws IOException {
+        // Random data where the start of the second block repeats the end of the first,
+        // which only compresses if the second block can refer back into the first
+        byte[] content = new byte[ParallelGzipOutputStream.BLOCK_SIZE * 2];
+        new Random(1).nextBytes(content);
+        int repeated = 16 * 1024;
+        System.arraycopy(content, ParallelGzipOutputStream.BLOCK_SIZE - repeated, content, ParallelGzipOutputStream.BLOCK_SIZE, repeated);
+        byte[] gzip = assertRoundTrip(content, 2);
+        assertTrue("Compressed to " + gzip.length, gzip.length < content.length - repeated / 2);
+    }
+
+    private static byte[] assertRoundTrip(byte[] content, int threads) throws IOException {
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (OutputStream out = new ParallelGzipOutputStream(gzip, null, threads)) {
+            // Odd sized writes so that they don't line up with the blocks
+            for (int off = 0; off < content.length; off += 7777) {
+                out.write(content, off, Math.min(7777, content.length - off));
+            }
+        }
+        assertArrayEquals(content, gunzip(gzip.toByteArray()));
+        return gzip.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+
+    private static byte[] content(int size) {
+        Random random = new Random(size);
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) ('a' + random.nextInt(random.nextBoolean() ? 4 : 26));
+        }
+        return content;
+    }
+}
@@ -0,0 +1,105 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.tar;
+
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading through a gzipped tar file of {@link Archive#size} bytes the way {@link UnTarStepExecution.UnTarFileCallable} does,
+ * with different sizes of {@link TarCompression#READ_BUFFER_SIZE},
+ * compared to decompressing straight from an unbuffered {@link FileInputStream} like the callable used to.
+ */
+@JmhBenchmark
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TarReadBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Archive {
+        @Param({"4294967296"})
+        public long size;
+
+        @Param({"65536", "1048576", "8388608"})
+        public int readBufferSize;
+
+        File tgz;
+        private int originalReadBufferSize;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            originalReadBufferSize = TarCompression.READ_BUFFER_SIZE;
+            TarCompression.READ_BUFFER_SIZE = readBufferSize;
+            tgz = File.createTempFile("tar-benchmark", ".tgz");
+            // Entries of 64MB of text like data, compressed fast so that the setup doesn't take forever
+            Random random = new Random(42);
+            byte[] content = new byte[64 * 1024 * 1024];
+            for (int i = 0; i < content.length; i++) {
+                content[i] = (byte) ('a' + random.nextInt(random.nextBoolean() ? 4 : 26));
+            }
+            try (TarArchiveOutputStream tar = new TarArchiveOutputStream(
+                    TarCompression.GZIP.compress(Files.newOutputStream(tgz.toPath()), 1, 1))) {
+                tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+                for (long written = 0, i = 0; written < size; written += content.length, i++) {
+                    TarArchiveEntry entry = new TarArchiveEntry("file" + i + ".txt");
+                    entry.setSize(content.length);
+                    tar.putArchiveEntry(entry);
+                    tar.write(content);
+                    tar.closeArchiveEntry();
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            TarCompression.READ_BUFFER_SIZE = originalReadBufferSize;
+            Files.deleteIfExists(tgz.toPath());
+        }
+    }
+
+    @Benchmark
+    public long decompress(Archive archive) throws IOException {
+        try (InputStream in = TarCompression.decompress(archive.tgz.toPath())) {
+            return drain(in);
+        }
+    }
+
+    @Benchmark
+    public long unbuffered(Archive archive) throws IOException {
+        try (InputStream in = new GzipCompressorInputStream(new FileInputStream(archive.tgz))) {
+            return drain(in);
+        }
+    }
+
+    private static long drain(InputStream in) throws IOException {
+        long size = 0;
+        try (TarArchiveInputStream tar = new TarArchiveInputStream(in)) {
+            OutputStream out = OutputStream.nullOutputStream();
+            while (tar.getNextTarEntry() != null) {
+                size += IOUtils.copyLarge(tar, out);
+            }
+        }
+        return size;
+    }
+}
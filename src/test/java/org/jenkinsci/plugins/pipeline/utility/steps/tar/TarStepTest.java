@@ -68,6 +68,9 @@ public class TarStepTest {
         step.setArchive(true);
         step.setCompress(true);
         step.setOverwrite(true);
+        step.setLevel(1);
+        step.setCompression("zstd");
+        step.setThreads(4);
 
         TarStep step2 = new StepConfigTester(j).configRoundTrip(step);
         j.assertEqualDataBoundBeans(step, step2);
@@ -90,6 +93,87 @@ public class TarStepTest {
         verifyArchivedHello(run, "");
     }
 
+    @Test
+    public void compressionLevelTar() throws Exception {
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node('slaves') {\n" +
+                        "  dir('hello') {\n" +
+                        "    writeFile file: 'hello.txt', text: 'Hello World!'\n" +
+                        "    tar file: '../hello.tgz', level: 9\n" +
+                        "  }\n" +
+                        "  dir('untarred') {\n" +
+                        "    untar '../hello.tgz'\n" +
+                        "    echo \"Reading: ${readFile 'hello.txt'}\"\n" +
+                        "  }\n" +
+                        "}", true));
+        WorkflowRun run = j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        j.assertLogContains("Compressed 1 entries.", run);
+        j.assertLogContains("Reading: Hello World!", run);
+    }
+
+    @Test
+    public void compressionFormatsTar() throws Exception {
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node('slaves') {\n" +
+                        "  dir('hello') {\n" +
+                        "    writeFile file: 'hello.txt', text: 'Hello World!'\n" +
+                        "  }\n" +
+                        "  for (String compression : ['none', 'gzip', 'bzip2', 'xz', 'zstd', 'lz4']) {\n" +
+                        "    tar file: \"hello.${compression}\", dir: 'hello', compression: compression\n" +
+                        "    dir(compression) {\n" +
+                        "      untar \"../hello.${compression}\"\n" +
+                        "      echo \"Reading ${compression}: ${readFile 'hello.txt'}\"\n" +
+                        "    }\n" +
+                        "  }\n" +
+                        "}", true));
+        WorkflowRun run = j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        for (String compression : new String[] {"none", "gzip", "bzip2", "xz", "zstd", "lz4"}) {
+            j.assertLogContains("Reading " + compression + ": Hello World!", run);
+        }
+    }
+
+    @Test
+    public void parallelCompressedTar() throws Exception {
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node('slaves') {\n" +
+                        "  dir('hello') {\n" +
+                        "    def text = ''\n" +
+                        "    for (int i = 0; i < 5000; i++) {\n" +
+                        "      text += \"Hello World ${i}!\\n\"\n" +
+                        "    }\n" +
+                        "    for (int i = 0; i < 20; i++) {\n" +
+                        "      writeFile file: \"hello${i}.txt\", text: text\n" +
+                        "    }\n" +
+                        "  }\n" +
+                        "  tar file: 'hello.tgz', dir: 'hello', compress: true, threads: 4\n" +
+                        "  dir('untarred') {\n" +
+                        "    untar '../hello.tgz'\n" +
+                        "    echo \"Lines: ${readFile('hello13.txt').readLines().size()}\"\n" +
+                        "  }\n" +
+                        "  echo \"Valid: ${untar file: 'hello.tgz', test: true}\"\n" +
+                        "}", true));
+        WorkflowRun run = j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        j.assertLogContains("Compressed 20 entries.", run);
+        j.assertLogContains("Extracted: 20 files", run);
+        j.assertLogContains("Lines: 5000", run);
+        j.assertLogContains("Valid: true", run);
+    }
+
+    @Test
+    public void unknownCompressionTar() throws Exception {
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node('slaves') {\n" +
+                        "  writeFile file: 'hello.txt', text: 'Hello World!'\n" +
+                        "  tar file: 'hello.tar.rar', glob: '**/*.txt', compression: 'rar'\n" +
+                        "}", true));
+        WorkflowRun run = j.assertBuildStatus(Result.FAILURE, p.scheduleBuild2(0).get());
+        j.assertLogContains("Unknown compression rar, should be one of none, gzip, bzip2, xz, zstd, lz4", run);
+    }
+
     @Test
     public void shouldNotPutOutputArchiveIntoItself() throws Exception {
         WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
@@ -26,6 +26,8 @@ package org.jenkinsci.plugins.pipeline.utility.steps.tar;
 
 import hudson.model.Label;
 import hudson.model.Result;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.io.IOUtils;
 import org.jenkinsci.plugins.pipeline.utility.steps.DecompressStepExecution;
 import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
@@ -40,9 +42,12 @@ import org.jvnet.hudson.test.Issue;
 import org.jvnet.hudson.test.JenkinsRule;
 
 import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 import static org.jenkinsci.plugins.pipeline.utility.steps.FilenameTestsUtils.separatorsToSystemEscaped;
 import static org.junit.Assert.assertFalse;
@@ -298,6 +303,25 @@ public class UnTarStepTest {
         j.assertLogContains("is out of bounds!", run);
     }
 
+    @Test @Issue("SECURITY-2196")
+    public void testingGzippedAbsolutePathsShouldFail() throws Exception {
+        assumeTrue("Can only run in a gnu unix environment", File.pathSeparatorChar == ':');
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        File tgz = new File(j.createTmpDir(), "absolute.tgz");
+        try (InputStream in = getClass().getResourceAsStream("absolute.tar");
+             OutputStream out = new GzipCompressorOutputStream(Files.newOutputStream(tgz.toPath()))) {
+            IOUtils.copy(in, out);
+        }
+        p.setDefinition(new CpsFlowDefinition(
+                "node {\n" +
+                        "  def result = untar file: '" + separatorsToSystemEscaped(tgz.getAbsolutePath()) + "', test: true\n" +
+                        "  if (result)\n" +
+                        "      error('Should be fail!')\n" +
+                        "}", true));
+        WorkflowRun run = j.buildAndAssertSuccess(p);
+        j.assertLogContains("is out of bounds!", run);
+    }
+
     @Test @Issue("SECURITY-2196")
     public void testingAbsolutePathsShouldNotFailWithEscapeHatch() throws Exception {
         assumeTrue("Can only run in a gnu unix environment", File.pathSeparatorChar == ':');
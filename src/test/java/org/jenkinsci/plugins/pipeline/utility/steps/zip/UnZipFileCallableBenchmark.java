@@ -0,0 +1,108 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.zip;
+
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Enumeration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Extraction of an archive with many small entries by {@link UnZipStepExecution.UnZipFileCallable},
+ * compared to writing each entry through {@link FilePath} like the callable used to.
+ */
+@JmhBenchmark
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UnZipFileCallableBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Archive {
+        @Param({"100000"})
+        public int entries;
+
+        @Param({"1024"})
+        public int entrySize;
+
+        File zip;
+        File destination;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            zip = File.createTempFile("unzip-benchmark", ".zip");
+            destination = Files.createTempDirectory("unzip-benchmark").toFile();
+            Random random = new Random(42);
+            byte[] content = new byte[entrySize];
+            try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+                for (int i = 0; i < entries; i++) {
+                    random.nextBytes(content);
+                    out.putNextEntry(new ZipEntry("module" + (i % 1000) + "/lib/file" + i + ".js"));
+                    out.write(content);
+                    out.closeEntry();
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            FileUtils.deleteDirectory(destination);
+            Files.deleteIfExists(zip.toPath());
+        }
+    }
+
+    @Benchmark
+    public Object localFileWriter(Archive archive) throws Exception {
+        UnZipStepExecution.UnZipFileCallable callable =
+                new UnZipStepExecution.UnZipFileCallable(TaskListener.NULL, null, false, "UTF-8", true);
+        callable.setDestination(new FilePath(archive.destination));
+        return callable.invoke(archive.zip, null);
+    }
+
+    @Benchmark
+    public int filePath(Archive archive) throws Exception {
+        FilePath destination = new FilePath(archive.destination);
+        destination.mkdirs();
+        int count = 0;
+        try (ZipFile zip = new ZipFile(archive.zip, StandardCharsets.UTF_8)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                FilePath f = destination.child(entry.getName());
+                File dst = archive.destination.getCanonicalFile();
+                if (!new File(f.getRemote()).getCanonicalFile().toPath().startsWith(dst.toPath())) {
+                    throw new FileNotFoundException(f.getRemote() + " is out of bounds!");
+                }
+                try (InputStream inputStream = zip.getInputStream(entry);
+                     OutputStream outputStream = f.write()) {
+                    IOUtils.copy(inputStream, outputStream);
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -28,6 +28,8 @@ import hudson.Functions;
 import hudson.model.Label;
 import hudson.model.Result;
 import hudson.model.queue.QueueTaskFuture;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.jenkinsci.plugins.pipeline.utility.steps.DecompressStepExecution;
 import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
@@ -44,6 +46,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 
 import static org.jenkinsci.plugins.pipeline.utility.steps.FilenameTestsUtils.separatorsToSystemEscaped;
 import static org.junit.Assert.assertFalse;
@@ -72,6 +75,7 @@ public class UnZipStepTest {
         step.setRead(true);
         step.setQuiet(false);
         step.setCharset("");
+        step.setParallelism(4);
 
         UnZipStep step2 = new StepConfigTester(j).configRoundTrip(step);
         j.assertEqualDataBoundBeans(step, step2);
@@ -104,6 +108,61 @@ public class UnZipStepTest {
         j.assertLogContains("Reading: Hello World!", run);
     }
 
+    @Test
+    public void parallelUnZip() throws Exception {
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node('slaves') {\n" +
+                        "  dir('zipIt') {\n" +
+                        "    for (int i = 0; i < 20; i++) {\n" +
+                        "      writeFile file: \"dir${i % 3}/hello${i}.txt\", text: \"Hello World ${i}!\"\n" +
+                        "    }\n" +
+                        "    writeFile file: 'hello.dat', text: 'Hello World!'\n" +
+                        "    zip zipFile: '../hello.zip'\n" +
+                        "  }\n" +
+                        "  dir('unzip') {\n" +
+                        "    unzip zipFile: '../hello.zip', glob: '**/*.txt', parallelism: 4\n" +
+                        "    echo \"Reading: ${readFile 'dir1/hello13.txt'}\"\n" +
+                        "    echo \"Exists: ${fileExists 'hello.dat'}\"\n" +
+                        "  }\n" +
+                        "}", true));
+        WorkflowRun run = j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        j.assertLogContains("Extracting: dir1/hello13.txt ->", run);
+        j.assertLogContains("Worker 4: ", run);
+        j.assertLogContains("Extracted: 20 files", run);
+        j.assertLogContains("Reading: Hello World 13!", run);
+        j.assertLogContains("Exists: false", run);
+    }
+
+    @Test
+    public void parallelUnZipDuplicateEntries() throws Exception {
+        File zip = File.createTempFile("duplicates", ".zip");
+        try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(zip)) {
+            String[][] entries = {{"dup.txt", "first"}, {"other.txt", "other"}, {"dup.txt", "second"}};
+            for (String[] entry : entries) {
+                out.putArchiveEntry(new ZipArchiveEntry(entry[0]));
+                out.write(entry[1].getBytes(StandardCharsets.UTF_8));
+                out.closeArchiveEntry();
+            }
+        }
+        try {
+            WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+            p.setDefinition(new CpsFlowDefinition(
+                    "node('slaves') {\n" +
+                            "  dir('unzip') {\n" +
+                            "    unzip zipFile: '" + separatorsToSystemEscaped(zip.getAbsolutePath()) + "', parallelism: 4, quiet: true\n" +
+                            "    echo \"Reading: ${readFile 'dup.txt'}\"\n" +
+                            "  }\n" +
+                            "}", true));
+            WorkflowRun run = j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+            j.assertLogContains("Extracted: 3 files", run);
+            j.assertLogContains("Reading: second", run);
+            j.assertLogNotContains("Worker 1: ", run);
+        } finally {
+            zip.delete();
+        }
+    }
+
     @Test
     public void globUnZip() throws Exception {
         WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
@@ -235,6 +294,39 @@ public class UnZipStepTest {
         j.assertBuildStatusSuccess(p.scheduleBuild2(0));
     }
 
+    @Test
+    public void parallelZipTesting() throws Exception {
+        URL ok = getClass().getResource("test_ok.zip");
+        URL broken = getClass().getResource("test_broken.zip");
+        String okZip = new File(URLDecoder.decode(ok.getPath(), "UTF-8")).getAbsolutePath().replace('\\', '/');
+        String brokenZip = new File(URLDecoder.decode(broken.getPath(), "UTF-8")).getAbsolutePath().replace('\\', '/');
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node {\n" +
+                "  if (!unzip(zipFile: '" + separatorsToSystemEscaped(okZip) + "', test: true, parallelism: 4))\n" +
+                "      error('Should be okay!')\n" +
+                "  if (unzip(zipFile: '" + separatorsToSystemEscaped(brokenZip) + "', test: true, parallelism: 4))\n" +
+                "      error('Should be corrupt!')\n" +
+                "}", true));
+        WorkflowRun run = j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        j.assertLogContains("Verified: ", run);
+        j.assertLogContains("Checksum error in : ", run);
+    }
+
+    @Test
+    public void quietZipTesting() throws Exception {
+        URL ok = getClass().getResource("test_ok.zip");
+        String okZip = new File(URLDecoder.decode(ok.getPath(), "UTF-8")).getAbsolutePath().replace('\\', '/');
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node {\n" +
+                "  if (!unzip(zipFile: '" + separatorsToSystemEscaped(okZip) + "', test: true, parallelism: 4, quiet: true))\n" +
+                "      error('Should be okay!')\n" +
+                "}", true));
+        WorkflowRun run = j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        j.assertLogNotContains("Verified: ", run);
+    }
+
     @Test
     public void unzipQuiet() throws Exception {
         WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
@@ -347,4 +439,41 @@ public class UnZipStepTest {
         WorkflowRun run = j.buildAndAssertStatus(Result.FAILURE, p);
         j.assertLogContains("is out of bounds!", run);
     }
+
+    @Test @Issue("SECURITY-2196")
+    public void unZipMaliciousInParallelFailsTheBuild() throws Exception {
+        assumeTrue("Can only run in a gnu unix environment", File.pathSeparatorChar == ':');
+        /*
+         This test uses a prepared zip file with a malicious payload.
+         */
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        URL resource = getClass().getResource("malicious.zip");
+        String zip = new File(URLDecoder.decode(resource.getPath(), "UTF-8")).getAbsolutePath().replace('\\', '/');
+        p.setDefinition(new CpsFlowDefinition(
+                "node {\n" +
+                        "  unzip zipFile: '" + separatorsToSystemEscaped(zip) + "', parallelism: 4\n" +
+                        "}", true));
+        WorkflowRun run = j.buildAndAssertStatus(Result.FAILURE, p);
+        j.assertLogContains("is out of bounds!", run);
+    }
+
+    @Test
+    public void unZipThroughSymlinkedDirectoryFailsTheBuild() throws Exception {
+        assumeTrue("Can only run in a gnu unix environment", File.pathSeparatorChar == ':');
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node {\n" +
+                        "  dir('zipIt') {\n" +
+                        "    writeFile file: 'hello.txt', text: 'Hello World!'\n" +
+                        "    writeFile file: 'link/hello.txt', text: 'Hello Outside!'\n" +
+                        "    zip zipFile: '../hello.zip'\n" +
+                        "  }\n" +
+                        "  sh 'mkdir -p outside unzip && ln -s ../outside unzip/link'\n" +
+                        "  dir('unzip') {\n" +
+                        "    unzip '../hello.zip'\n" +
+                        "  }\n" +
+                        "}", true));
+        WorkflowRun run = j.buildAndAssertStatus(Result.FAILURE, p);
+        j.assertLogContains("is out of bounds!", run);
+    }
 }
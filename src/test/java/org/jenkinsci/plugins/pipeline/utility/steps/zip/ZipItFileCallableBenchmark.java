@@ -0,0 +1,77 @@
+package org.jenkinsci.plugins.pipeline.utility.steps.zip;
+
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link ZipStepExecution.ZipItFileCallable} with different degrees of parallelism.
+ * A parallelism of 1 is the single threaded path.
+ */
+@JmhBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ZipItFileCallableBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Workspace {
+        @Param({"1", "2", "4", "8"})
+        public int parallelism;
+
+        @Param({"200"})
+        public int files;
+
+        @Param({"1048576"})
+        public int fileSize;
+
+        File source;
+        File zip;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            source = Files.createTempDirectory("zip-benchmark").toFile();
+            zip = File.createTempFile("zip-benchmark", ".zip");
+            Random random = new Random(42);
+            byte[] content = new byte[fileSize];
+            for (int i = 0; i < files; i++) {
+                // Half random, half repeated data so that there is something for deflate to work on
+                random.nextBytes(content);
+                for (int j = content.length / 2; j < content.length; j++) {
+                    content[j] = (byte) ('a' + j % 26);
+                }
+                FileUtils.writeByteArrayToFile(new File(source, "dir" + (i % 10) + "/file" + i + ".bin"), content);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            FileUtils.deleteDirectory(source);
+            Files.deleteIfExists(zip.toPath());
+        }
+    }
+
+    @Benchmark
+    public Integer zip(Workspace workspace) throws Exception {
+        ZipStepExecution.ZipItFileCallable callable =
+                new ZipStepExecution.ZipItFileCallable(TaskListener.NULL, null, null, true, true, workspace.parallelism, null, false, false);
+        callable.setDestination(new FilePath(workspace.zip));
+        return callable.invoke(workspace.source, null);
+    }
+}
@@ -28,6 +28,7 @@ import hudson.model.Label;
 import hudson.model.Result;
 import hudson.model.Run;
 import jenkins.util.VirtualFile;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.jenkinsci.plugins.workflow.job.WorkflowRun;
@@ -39,7 +40,14 @@ import org.jvnet.hudson.test.Issue;
 import org.jvnet.hudson.test.JenkinsRule;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -67,6 +75,10 @@ public class ZipStepTest {
         step.setExclude("**/*.txt");
         step.setArchive(true);
         step.setOverwrite(true);
+        step.setParallelism(4);
+        step.setLevel(9);
+        step.setStoreIncompressible(true);
+        step.setUpdate(true);
 
         ZipStep step2 = new StepConfigTester(j).configRoundTrip(step);
         j.assertEqualDataBoundBeans(step, step2);
@@ -91,6 +103,82 @@ public class ZipStepTest {
 
     }
 
+    @Test
+    public void parallelArchivedZip() throws Exception {
+
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node('slaves') {\n" +
+                        "  dir('hello') {\n" +
+                        "    for (int i = 0; i < 20; i++) {\n" +
+                        "      writeFile file: \"dir${i % 3}/hello${i}.txt\", text: \"Hello World ${i}!\"\n" +
+                        "    }\n" +
+                        "    zip zipFile: '../hello.zip', parallelism: 4\n" +
+                        "  }\n" +
+                        "  dir('unzipped') {\n" +
+                        "    unzip '../hello.zip'\n" +
+                        "    echo \"Reading: ${readFile 'dir1/hello13.txt'}\"\n" +
+                        "  }\n" +
+                        "  echo \"Valid: ${unzip zipFile: 'hello.zip', test: true}\"\n" +
+                        "}", true));
+        WorkflowRun run = j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        j.assertLogContains("Compressed 20 entries.", run);
+        j.assertLogContains("Extracted: 20 files", run);
+        j.assertLogContains("Reading: Hello World 13!", run);
+        j.assertLogContains("Valid: true", run);
+    }
+
+    @Test
+    public void storedZip() throws Exception {
+
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node('slaves') {\n" +
+                        "  dir('hello') {\n" +
+                        "    writeFile file: 'hello.txt', text: 'Hello World!'\n" +
+                        "  }\n" +
+                        "  zip zipFile: 'hello.zip', dir: 'hello', archive: true, level: 0\n" +
+                        "}", true));
+        WorkflowRun run = j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        verifyArchivedHello(run, "");
+        assertEquals(ZipEntry.STORED, archivedEntryMethods(run).get("hello.txt").intValue());
+    }
+
+    @Test
+    public void storeIncompressibleZip() throws Exception {
+
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node('slaves') {\n" +
+                        "  def text = ''\n" +
+                        "  for (int i = 0; i < 100; i++) {\n" +
+                        "    text += 'Hello World!\\n'\n" +
+                        "  }\n" +
+                        "  dir('hello') {\n" +
+                        "    writeFile file: 'hello.txt', text: text\n" +
+                        "    writeFile file: 'hello.jar', text: text\n" +
+                        "  }\n" +
+                        "  zip zipFile: 'hello.zip', dir: 'hello', archive: true, storeIncompressible: true\n" +
+                        "}", true));
+        WorkflowRun run = j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        Map<String, Integer> methods = archivedEntryMethods(run);
+        assertEquals(ZipEntry.DEFLATED, methods.get("hello.txt").intValue());
+        assertEquals(ZipEntry.STORED, methods.get("hello.jar").intValue());
+    }
+
+    @Test
+    public void invalidLevel() throws Exception {
+
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node('slaves') {\n" +
+                        "  writeFile file: 'hello.txt', text: 'Hello World!'\n" +
+                        "  zip zipFile: 'hello.zip', glob: '**/*.txt', level: 10\n" +
+                        "}", true));
+        WorkflowRun run = j.assertBuildStatus(Result.FAILURE, p.scheduleBuild2(0).get());
+        j.assertLogContains("level must be between 0 and 9, was 10", run);
+    }
+
     @Test
     public void shouldNotPutOutputArchiveIntoItself() throws Exception {
 
@@ -264,6 +352,118 @@ public class ZipStepTest {
         j.assertLogContains("Compressed 1 entries.", run);
     }
 
+    @Test
+    public void existingZipFileWithUpdate() throws Exception {
+
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node('slaves') {\n" +
+                        "  dir('hello') {\n" +
+                        "    writeFile file: 'same.txt', text: 'Same'\n" +
+                        "    writeFile file: 'changed.txt', text: 'Before'\n" +
+                        "    writeFile file: 'removed.txt', text: 'Removed'\n" +
+                        "  }\n" +
+                        "  zip zipFile: 'hello.zip', dir: 'hello'\n" +
+                        "  dir('hello') {\n" +
+                        "    writeFile file: 'changed.txt', text: 'After'\n" +
+                        "    writeFile file: 'added.txt', text: 'Added'\n" +
+                        "  }\n" +
+                        "  zip zipFile: 'hello.zip', dir: 'hello', exclude: 'removed.txt', update: true\n" +
+                        "  unzip zipFile: 'hello.zip', dir: 'out'\n" +
+                        "  for (String name : ['same', 'changed', 'added']) {\n" +
+                        "    echo name + ': ' + readFile('out/' + name + '.txt')\n" +
+                        "  }\n" +
+                        "  echo 'removed: ' + fileExists('out/removed.txt')\n" +
+                        "}", true));
+        WorkflowRun run = j.assertBuildStatusSuccess(p.scheduleBuild2(0).get());
+        j.assertLogNotContains("hello.zip exists.", run);
+        j.assertLogContains("Reused 1 unchanged entries.", run);
+        j.assertLogContains("Compressed 3 entries.", run);
+        j.assertLogContains("same: Same", run);
+        j.assertLogContains("changed: After", run);
+        j.assertLogContains("added: Added", run);
+        j.assertLogContains("removed: false", run);
+    }
+
+    @Test
+    public void updateRewrittenWithSameSize() throws Exception {
+        WorkflowJob p = j.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+                "node('slaves') {\n" +
+                        "  writeFile file: 'hello/stamp.txt', text: 'Before'\n" +
+                        "  zip zipFile: 'hello.zip', dir: 'hello'\n" +
+                        "  writeFile file: 'hello/stamp.txt', text: 'Later!'\n" +
+                        "  zip zipFile: 'hello.zip', dir: 'hello', update: true\n" +
+                        "  unzip zipFile: 'hello.zip', dir: 'out'\n" +
+                        "  echo 'stamp: ' + readFile('out/stamp.txt')\n" +
+                        "}", true));
+        WorkflowRun run = j.assertBuildStatusSuccess(p.scheduleBuild2(0).get());
+        j.assertLogContains("stamp: Later!", run);
+    }
+
+    @Test
+    public void unchangedWithinZipTimestampResolution() throws Exception {
+        Path file = Files.createTempFile("stamp", ".txt");
+        try {
+            long time = 1_600_000_000_000L;
+            ZipArchiveEntry dos = entry("Before");
+            dos.setTime(time);
+            ZipArchiveEntry exact = entry("Before");
+            ZipStepExecution.ZipItFileCallable.setModifyTime(exact, time + 500);
+
+            // Rewritten with the same size within the two seconds of the zip timestamp
+            Files.write(file, "Later!".getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(file, FileTime.fromMillis(time + 1000));
+            assertFalse(ZipStepExecution.ZipItFileCallable.isUnchanged(exact, file.toFile()));
+
+            // Rewritten with the same size after the zip timestamp
+            Files.setLastModifiedTime(file, FileTime.fromMillis(time + 3000));
+            assertFalse(ZipStepExecution.ZipItFileCallable.isUnchanged(dos, file.toFile()));
+
+            // Only touched, which the checksum tells
+            Files.write(file, "Before".getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(file, FileTime.fromMillis(time + 3000));
+            assertTrue(ZipStepExecution.ZipItFileCallable.isUnchanged(dos, file.toFile()));
+
+            // Within the two seconds of the zip timestamp
+            Files.setLastModifiedTime(file, FileTime.fromMillis(time + 1000));
+            assertTrue(ZipStepExecution.ZipItFileCallable.isUnchanged(dos, file.toFile()));
+
+            // The exact same time
+            Files.setLastModifiedTime(file, FileTime.fromMillis(time + 500));
+            assertTrue(ZipStepExecution.ZipItFileCallable.isUnchanged(exact, file.toFile()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void rewrittenWithOlderTime() throws Exception {
+        Path file = Files.createTempFile("stamp", ".txt");
+        try {
+            long time = 1_600_000_000_000L;
+            ZipArchiveEntry dos = entry("Before");
+            dos.setTime(time);
+
+            // Like cp -p or a checkout of an older revision
+            Files.write(file, "Older!".getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(file, FileTime.fromMillis(time - 60_000));
+            assertFalse(ZipStepExecution.ZipItFileCallable.isUnchanged(dos, file.toFile()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static ZipArchiveEntry entry(String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        ZipArchiveEntry entry = new ZipArchiveEntry("stamp.txt");
+        entry.setSize(bytes.length);
+        entry.setCrc(crc.getValue());
+        return entry;
+    }
+
     private void verifyArchivedHello(WorkflowRun run, String basePath) throws IOException {
         assertTrue("Build should have artifacts", run.getHasArtifacts());
         Run<WorkflowJob, WorkflowRun>.Artifact artifact = run.getArtifacts().get(0);
@@ -284,6 +484,19 @@ public class ZipStepTest {
         }
     }
 
+    private Map<String, Integer> archivedEntryMethods(WorkflowRun run) throws IOException {
+        assertTrue("Build should have artifacts", run.getHasArtifacts());
+        Run<WorkflowJob, WorkflowRun>.Artifact artifact = run.getArtifacts().get(0);
+        VirtualFile file = run.getArtifactManager().root().child(artifact.relativePath);
+        Map<String, Integer> methods = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(file.open())) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                methods.put(entry.getName(), entry.getMethod());
+            }
+        }
+        return methods;
+    }
+
     private void verifyArchivedNotContainingItself(WorkflowRun run) throws IOException {
         assertTrue("Build should have artifacts", run.getHasArtifacts());
         Run<WorkflowJob, WorkflowRun>.Artifact artifact = run.getArtifacts().get(0);